@@ -1,41 +1,157 @@
-import java.util.Objects;
+import java.util.Arrays;
 
 /**
  * Class for generating the action commands.
+ *
+ * An action is an opcode and its integer operands, so comparing, hashing and
+ * dispatching on actions never touches strings; the command text is only
+ * built when it is written out. Idle, stance and defend actions are shared,
+ * as are moves, pickups and plants for every space on the field.
  */
 public class Action
 {
-    private final String fCommand;
+    /**
+     * The kinds of action, each with the command word the game engine
+     * expects.
+     */
+    public enum Opcode
+    {
+        IDLE("idle"),
+        MOVE("move"),
+        PICKUP("pickup"),
+        LAUNCH("launch"),
+        DEFEND("defend"),
+        UNDEFEND("undefend"),
+        CROUCH("crouch"),
+        STAND("stand"),
+        PLANT("plant"),
+        DROP("drop");
+
+        private final String fWord;
+
+        Opcode(String word)
+        {
+            fWord = word;
+        }
+
+        public String word()
+        {
+            return fWord;
+        }
+    }
+
+    private static final int[] NO_OPERANDS = {};
+
+    private static final Action IDLE = new Action( Opcode.IDLE, NO_OPERANDS, 0, null);
+    private static final Action DEFEND = new Action( Opcode.DEFEND, NO_OPERANDS, 0, null);
+    private static final Action UNDEFEND = new Action( Opcode.UNDEFEND, NO_OPERANDS, 0, null);
+    private static final Action CROUCH = new Action( Opcode.CROUCH, NO_OPERANDS, 0, null);
+    private static final Action STAND = new Action( Opcode.STAND, NO_OPERANDS, 0, null);
+
+    // actions aimed at a space on the field, indexed by cell
+    private static final Action[] MOVES = new Action[Constants.NUM_CELLS];
+    private static final Action[] PICKUPS = new Action[Constants.NUM_CELLS];
+    private static final Action[] PLANTS = new Action[Constants.NUM_CELLS];
+
+    static
+    {
+        for (int cell = 0; cell < Constants.NUM_CELLS; cell++)
+        {
+            Point point = Point.of(cell);
+            MOVES[cell] = onPoint( Opcode.MOVE, point, 0);
+            PICKUPS[cell] = onPoint( Opcode.PICKUP, point, 0);
+            PLANTS[cell] = onPoint( Opcode.PLANT, point, 25);
+        }
+    }
+
+    private final Opcode fOpcode;
+    private final int[] fOperands;
     private final int ammoRequired;
     private final Point target;
+    private final int fHash;
+    private String fCommand;
 
-    private Action( String command, int ballsRequired, Point target)
+    private Action( Opcode opcode, int[] operands, int ballsRequired, Point target)
     {
-        fCommand = command;
+        fOpcode = opcode;
+        fOperands = operands;
         this.ammoRequired = ballsRequired;
         this.target = target;
+        fHash = 31 * opcode.ordinal() + Arrays.hashCode(operands);
+    }
+
+    private static Action onPoint( Opcode opcode, Point point, int ballsRequired)
+    {
+        return new Action( opcode, new int[] { point.getX(), point.getY() }, ballsRequired, point);
     }
 
     @Override
     public String toString()
     {
+        if (fCommand == null) {
+            StringBuilder command = new StringBuilder(fOpcode.word());
+            for (int operand : fOperands) {
+                command.append(' ').append(operand);
+            }
+            fCommand = command.toString();
+        }
         return fCommand;
     }
+
     @Override
     public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
         if (other instanceof Action) {
-            return other.toString().equals(fCommand);
+            Action action = (Action) other;
+            return fHash == action.fHash && fOpcode == action.fOpcode && Arrays.equals(fOperands, action.fOperands);
         }
         return false;
     }
 
     @Override
     public int hashCode() {
-        int hash = 7;
-        hash = 19 * hash + Objects.hashCode(this.fCommand);
-        return hash;
+        return fHash;
     }
-    
+
+    /**
+     * Writes the command for this action without building a string.
+     *
+     * @param out where the command is written
+     */
+    public void writeTo(ActionWriter out) {
+        out.writeText(fOpcode.word());
+        for (int operand : fOperands) {
+            out.writeByte(' ');
+            out.writeInt(operand);
+        }
+    }
+
+    /**
+     * Gets the kind of this action.
+     *
+     * @return the opcode
+     */
+    public Opcode getOpcode() {
+        return fOpcode;
+    }
+
+    /**
+     * @return how many numbers follow the opcode in the command
+     */
+    public int operandCount() {
+        return fOperands.length;
+    }
+
+    /**
+     * @param i which number, from 0
+     * @return the number at that place in the command after the opcode
+     */
+    public int operand(int i) {
+        return fOperands[i];
+    }
+
     public int ammoRequired() {
         return ammoRequired;
     }
@@ -50,7 +166,7 @@ public class Action
      */
     public static Action makeIdleAction()
     {
-        return new Action( "idle", 0, null);
+        return IDLE;
     }
 
     /**
@@ -62,7 +178,7 @@ public class Action
      */
     public static Action makeMoveAction( Point target )
     {
-        return new Action( String.format( "move %d %d", target.getX(), target.getY() ), 0, target);
+        return target.exists() ? MOVES[target.index()] : onPoint( Opcode.MOVE, target, 0);
     }
 
 
@@ -75,7 +191,7 @@ public class Action
      */
     public static Action makePickupItemAction(Point point)
     {
-        return new Action( String.format( "pickup %d %d", point.getX(), point.getY()), 0, point);
+        return point.exists() ? PICKUPS[point.index()] : onPoint( Opcode.PICKUP, point, 0);
     }
 
     /**
@@ -88,7 +204,7 @@ public class Action
      */
     public static Action makeLaunchAction( Point target, boolean rapidFire)
     {
-        return new Action( String.format( "launch %d %d", target.getX(), target.getY() ), rapidFire ? 3 : 1, target);
+        return onPoint( Opcode.LAUNCH, target, rapidFire ? 3 : 1);
     }
 
     /**
@@ -101,7 +217,7 @@ public class Action
      */
     public static Action makeLaunchAction( Point start, Point end )
     {
-        return new Action( String.format( "launch %d %d %d %d", start.getX(), start.getY(), end.getX(), end.getY() ), 3, start);
+        return new Action( Opcode.LAUNCH, new int[] { start.getX(), start.getY(), end.getX(), end.getY() }, 3, start);
     }
 
     /**
@@ -111,7 +227,7 @@ public class Action
      */
     public static Action makeDefendAction()
     {
-        return new Action( "defend", 0 , null);
+        return DEFEND;
     }
 
     /**
@@ -121,7 +237,7 @@ public class Action
      */
     public static Action makeUndefendAction()
     {
-        return new Action( "undefend", 0, null);
+        return UNDEFEND;
     }
 
     /**
@@ -131,7 +247,7 @@ public class Action
      */
     public static Action makeCrouchAction()
     {
-        return new Action( "crouch", 0, null);
+        return CROUCH;
     }
 
     /**
@@ -141,7 +257,7 @@ public class Action
      */
     public static Action makeStandAction()
     {
-        return new Action( "stand", 0, null);
+        return STAND;
     }
 
     /**
@@ -152,7 +268,7 @@ public class Action
      */
     public static Action makePlantAction(Point point)
     {
-        return new Action( String.format( "plant %d %d", point.getX(), point.getY()), 25, point);
+        return point.exists() ? PLANTS[point.index()] : onPoint( Opcode.PLANT, point, 25);
     }
 
     /**
@@ -165,6 +281,6 @@ public class Action
      */
     public static Action makeDropAction( Point dropTarget, int numPaintballsToDrop )
     {
-        return new Action( String.format( "drop %d %d %d", dropTarget.getX(), dropTarget.getY(), numPaintballsToDrop ), numPaintballsToDrop, dropTarget);
+        return new Action( Opcode.DROP, new int[] { dropTarget.getX(), dropTarget.getY(), numPaintballsToDrop }, numPaintballsToDrop, dropTarget);
     }
 }
\ No newline at end of file
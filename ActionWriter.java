@@ -0,0 +1,64 @@
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Collects the actions for a turn in a reusable byte buffer and sends them
+ * to the game engine in a single write.
+ */
+public class ActionWriter {
+
+    private final OutputStream out;
+    private byte[] buffer = new byte[256];
+    private int size = 0;
+
+    public ActionWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Adds an action to the turn's output as a line of its own.
+     *
+     * @param action the action for the next child
+     */
+    public void write(Action action) {
+        action.writeTo(this);
+        writeByte('\n');
+    }
+
+    /**
+     * Sends everything written since the last flush to the game engine.
+     *
+     * @throws IOException if the output cannot be written
+     */
+    public void flush() throws IOException {
+        out.write(buffer, 0, size);
+        out.flush();
+        size = 0;
+    }
+
+    void writeText(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            writeByte(text.charAt(i));
+        }
+    }
+
+    void writeInt(int value) {
+        if (value < 0) {
+            writeByte('-');
+            value = -value;
+        }
+        if (value >= 10) {
+            writeInt(value / 10);
+        }
+        writeByte('0' + value % 10);
+    }
+
+    void writeByte(int b) {
+        if (size == buffer.length) {
+            byte[] larger = new byte[2 * buffer.length];
+            System.arraycopy(buffer, 0, larger, 0, size);
+            buffer = larger;
+        }
+        buffer[size++] = (byte) b;
+    }
+}
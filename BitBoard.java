@@ -0,0 +1,113 @@
+/**
+ * A set of spaces on the field stored as one bit per cell index.
+ *
+ * The whole field fits in sixteen longs, so clearing, combining and testing
+ * for emptiness are a handful of word operations. Set spaces are visited in
+ * cell index order with nextSetBit:
+ *
+ * <pre>
+ * for (int cell = board.nextSetBit(0); cell &gt;= 0; cell = board.nextSetBit(cell + 1)) {
+ *     ...
+ * }
+ * </pre>
+ */
+public final class BitBoard {
+
+    private static final int WORDS = (Constants.NUM_CELLS + 63) >>> 6;
+
+    private final long[] words = new long[WORDS];
+
+    public boolean get(int cell) {
+        return (words[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    public void set(int cell) {
+        words[cell >>> 6] |= 1L << cell;
+    }
+
+    public void clear(int cell) {
+        words[cell >>> 6] &= ~(1L << cell);
+    }
+
+    public void set(int cell, boolean value) {
+        if (value) {
+            set(cell);
+        } else {
+            clear(cell);
+        }
+    }
+
+    /**
+     * Removes every space from this board.
+     */
+    public void clear() {
+        for (int i = 0; i < WORDS; i++) {
+            words[i] = 0;
+        }
+    }
+
+    public boolean isEmpty() {
+        for (int i = 0; i < WORDS; i++) {
+            if (words[i] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int cardinality() {
+        int count = 0;
+        for (int i = 0; i < WORDS; i++) {
+            count += Long.bitCount(words[i]);
+        }
+        return count;
+    }
+
+    /**
+     * Finds the first set space at or after a cell index.
+     *
+     * @param from the cell index to start looking at
+     * @return the cell index of the next set space, or -1 if there is none
+     */
+    public int nextSetBit(int from) {
+        if (from >= Constants.NUM_CELLS) {
+            return -1;
+        }
+        int i = from >>> 6;
+        long word = words[i] & (-1L << from);
+        while (true) {
+            if (word != 0) {
+                return (i << 6) + Long.numberOfTrailingZeros(word);
+            }
+            if (++i == WORDS) {
+                return -1;
+            }
+            word = words[i];
+        }
+    }
+
+    public boolean intersects(BitBoard other) {
+        for (int i = 0; i < WORDS; i++) {
+            if ((words[i] & other.words[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void copyFrom(BitBoard other) {
+        System.arraycopy(other.words, 0, words, 0, WORDS);
+    }
+
+    public void or(BitBoard other) {
+        for (int i = 0; i < WORDS; i++) {
+            words[i] |= other.words[i];
+        }
+    }
+
+    public void andNot(BitBoard other) {
+        for (int i = 0; i < WORDS; i++) {
+            words[i] &= ~other.words[i];
+        }
+    }
+}
@@ -1,7 +1,8 @@
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
@@ -17,7 +18,6 @@ public abstract class Child {
     // Location of the child.
     private Point fPos;
 
-    private final Set<Point> blockedSpaces;
     private Action currentAction;
 
     // True if the child is standing.
@@ -35,13 +35,15 @@ public abstract class Child {
     // Number of paintballs being held by the child
     private int fPaintballs;
 
-    private static final Random RANDOM = new Random();
+    // each child draws from its own generator, since children rank their
+    // objectives on different threads at the same time
+    private final Random random = new Random();
 
     protected final Field field;
 
     public Child(int color, Field field) {
         fColor = color;
-        fPos = new Point();
+        fPos = Point.OFF_FIELD;
         fIsStanding = true;
         fIsDefending = false;
         fHolding = 0;
@@ -50,8 +52,6 @@ public abstract class Child {
         this.field = field;
 
         randomMove = null;
-
-        blockedSpaces = new HashSet<>(4);
     }
 
     /**
@@ -61,7 +61,6 @@ public abstract class Child {
      */
     public void setPosition(Point point) {
         fPos = point;
-        blockedSpaces.clear();
         currentAction = null;
     }
 
@@ -69,12 +68,22 @@ public abstract class Child {
         return fPos;
     }
 
-    protected int stepDistance() {
-        return fIsStanding ? fIsDefending ? 2 : 3 : 1;
+    /**
+     * Starts this child's random choices over from a seed, so that the same
+     * seed gives the same choices.
+     *
+     * @param seed the seed
+     */
+    public void reseed(long seed) {
+        random.setSeed(seed);
     }
 
-    public Set<Point> getBlockedSpaces() {
-        return Collections.unmodifiableSet(blockedSpaces);
+    final Random random() {
+        return random;
+    }
+
+    protected int stepDistance() {
+        return fIsStanding ? fIsDefending ? 2 : 3 : 1;
     }
 
     public Action getCurrentAction() {
@@ -120,6 +129,10 @@ public abstract class Child {
         fHolding = holding;
     }
 
+    protected int getHolding() {
+        return fHolding;
+    }
+
     /**
      * Sets the number of paintballs this child is holding.
      *
@@ -135,24 +148,26 @@ public abstract class Child {
 
     private Objective randomMove;
 
+    // the objective chosen last, kept for turns that are short on time
+    private Objective lastObjective;
+
+    // the route being followed to the current objective
+    private final Plan plan = new Plan();
+
+    // paintball piles no teammate is already going for
+    private final BitBoard reloadCandidates = new BitBoard();
+
     private Map<Objective, Double> priorityRankings() {
-        Map<Objective, Double> rankings = new HashMap<>(8);
-
-        Point closestShield = null;
-        Point closestAdapter = null;
-        for (int i = 0; i < Constants.FIELD_DIMENSION; i++) {
-            for (int j = 0; j < Constants.FIELD_DIMENSION; j++) {
-                Point point = new Point(i, j);
-                if (field.type(point) == Constants.SHIELD && (closestShield == null || getPosition().distance(point) < getPosition().distance(closestShield))) {
-                    closestShield = point;
-                } else if (field.type(point) == Constants.ADAPTER && (closestAdapter == null || getPosition().distance(point) < getPosition().distance(closestAdapter))) {
-                    closestAdapter = point;
-                } else if (field.type(point) < 0) {
-                    Objective obj = pickup(point);
-                    if (obj != null) {
-                        rankings.put(obj, getAmmoImportance(obj.getPosition(), point));
-                    }
-                }
+        Map<Objective, Double> rankings = new LinkedHashMap<>(8);
+
+        Point closestShield = field.nearestByPath(this, field.cellsOfType(Constants.SHIELD));
+        Point closestAdapter = field.nearestByPath(this, field.cellsOfType(Constants.ADAPTER));
+        BitBoard ammo = field.ammoCells();
+        for (int cell = ammo.nextSetBit(0); cell >= 0 && !TurnDeadline.expired(); cell = ammo.nextSetBit(cell + 1)) {
+            Point point = Point.of(cell);
+            Objective obj = pickup(point);
+            if (obj != null) {
+                rankings.put(obj, getAmmoImportance(obj.getPosition(), point));
             }
         }
         if (closestShield != null) {
@@ -171,27 +186,29 @@ public abstract class Child {
         double shortestDistance = Double.MAX_VALUE;
         Point closestEnemy = null;
         Point closestReachableEnemy = null;
+        Point shootTarget = null;
         for (Child enemy : field.enemies()) {
             Point enemyPosition = enemy.getPosition();
             double distance = getPosition().distance(enemyPosition);
-            if (!enemyPosition.equals(new Point()) && distance < shortestDistance && !enemy.isDefending()) {
+            if (enemyPosition != Point.OFF_FIELD && distance < shortestDistance && !enemy.isDefending()) {
                 if (enemy.isStanding()) {
                     shortestDistance = distance;
                     closestEnemy = enemyPosition;
                 }
-                if (Route.shootAt(getPosition(), enemyPosition) != null) {
+                Point aim = Route.shootAt(getPosition(), enemyPosition);
+                if (aim != null) {
                     closestReachableEnemy = enemyPosition;
+                    shootTarget = aim;
                 }
             }
         }
         if (closestReachableEnemy != null) {
-            Point shootTarget = Route.shootAt(getPosition(), closestReachableEnemy);
             Objective obj = new Objective(getPosition(), Action.makeLaunchAction(shootTarget, isHoldingRapidFireLauncher()));
             rankings.put(obj, getShootImportance(closestReachableEnemy, obj.getAction().ammoRequired()));
         }
         if (closestEnemy != null) {
             Objective obj = new Objective(Route.closestPointNextTo(getPosition(), closestEnemy), Action.makeLaunchAction(closestEnemy, isHoldingRapidFireLauncher()));
-            rankings.put(obj, getMoveToEnemyImportance(closestEnemy));
+            rankings.put(obj, getMoveToEnemyImportance(obj.getPosition()));
         }
 
         if (randomMove == null || field.type(randomMove.getPosition()) != Constants.UNKNOWN) {
@@ -217,20 +234,92 @@ public abstract class Child {
         return rankings;
     }
 
-    private Objective chooseObjective() {
+    /**
+     * Scores every objective this child could work toward this turn, leaving
+     * out the ones it has no ammo for or that are worth nothing. When the
+     * turn is nearly spent and the last objective can still be worked
+     * toward, that is the only one. Nothing is claimed or reserved, so
+     * objectives for different children can be ranked at the same time.
+     *
+     * @return the score of each objective
+     */
+    public final Map<Objective, Double> rankObjectives() {
+        if (TurnDeadline.nearlySpent() && canResume(lastObjective)) {
+            return Collections.singletonMap(lastObjective, 1.0);
+        }
         Map<Objective, Double> rankings = priorityRankings();
+//        LOG.log(Level.INFO, "Objectives: {0}", rankings.keySet());
+        Iterator<Map.Entry<Objective, Double>> entries = rankings.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<Objective, Double> entry = entries.next();
+//            LOG.log(Level.INFO, "Ranking of {0} at {1}: {2}", new Object[]{entry.getKey().getAction(), entry.getKey().getPosition(), entry.getValue()});
+            if (!(entry.getValue() > 0) || !enoughAmmoFor(entry.getKey().getAction())) {
+                entries.remove();
+            }
+        }
+        return rankings;
+    }
 
+    /**
+     * Picks the objective this child wants to work toward this turn. Nothing
+     * is claimed or reserved, so objectives for different children can be
+     * chosen at the same time.
+     *
+     * @return the chosen objective
+     */
+    public final Objective chooseObjective() {
+        return pursue(favourite(rankObjectives()));
+    }
+
+    /**
+     * @param rankings the score of each objective
+     * @return the objective with the highest score, or null if there are
+     * none
+     */
+    static Objective favourite(Map<Objective, Double> rankings) {
         Objective bestObjective = null;
-        Double mostPoints = 0.0;
-//        LOG.log(Level.INFO, "Objectives: {0}", rankings.keySet());
-        for (Objective objective : rankings.keySet()) {
-            double ranking = rankings.get(objective);
-//            LOG.log(Level.INFO, "Ranking of {0} at {1}: {2}", new Object[]{objective.getAction(), objective.getPosition(), ranking});
-            if (ranking > mostPoints && enoughAmmoFor(objective.getAction())) {
-                mostPoints = ranking;
-                bestObjective = objective;
+        double mostPoints = 0.0;
+        for (Map.Entry<Objective, Double> entry : rankings.entrySet()) {
+            if (entry.getValue() > mostPoints) {
+                mostPoints = entry.getValue();
+                bestObjective = entry.getKey();
+            }
+        }
+        return bestObjective;
+    }
+
+    /**
+     * Works toward an objective picked from this child's rankings, first
+     * standing up, crouching or defending if the objective or enemies in
+     * sight call for it. When this child can hit an enemy from here, or an
+     * enemy can see it, that is played out against launching, crouching,
+     * defending and running for cover, and whichever does best is done
+     * instead.
+     *
+     * @param bestObjective the objective picked
+     * @return what to do this turn
+     */
+    public final Objective pursue(Objective bestObjective) {
+        lastObjective = bestObjective;
+        Objective planned = ready(bestObjective);
+        if (TurnDeadline.nearlySpent()) {
+            return planned;
+        }
+        List<Child> inRange = new ArrayList<>(Constants.NUM_CHILDREN_PER_TEAM);
+        boolean engaged = field.canEnemySee(fPos);
+        for (Child enemy : field.enemies()) {
+            Point position = enemy.getPosition();
+            if (position.exists() && fPos.distance(position) <= Constants.MAX_LAUNCH_DISTANCE) {
+                inRange.add(enemy);
+                engaged = engaged || Route.shootAt(fPos, position) != null;
             }
         }
+        return inRange.isEmpty() || !engaged ? planned : fight(planned, inRange);
+    }
+
+    // stands up, crouches or defends first if the objective or enemies in
+    // sight call for it
+    private Objective ready(Objective bestObjective) {
 //        LOG.log(Level.INFO, "Best objective: {0}", bestObjective == null ? null : bestObjective.getAction());
 //        if (bestObjective.getAction().equals(Action.makeIdleAction())) {
 //            field.log();
@@ -239,8 +328,8 @@ public abstract class Child {
 //            LOG.info("No objectives!");
 //            field.log();
 //        }
-        String action = bestObjective.getAction().toString().split(" ", 2)[0];
-        if (action.equals("launch")) {
+        Action.Opcode action = bestObjective.getAction().getOpcode();
+        if (action == Action.Opcode.LAUNCH) {
             if (!fIsStanding) {
                 return new Objective(fPos, Action.makeStandAction());
             } else if (fIsDefending) {
@@ -251,10 +340,10 @@ public abstract class Child {
                 if (isHoldingShield()) {
                     return new Objective(fPos, Action.makeDefendAction());
                 } else if (fIsStanding) {
-                    if (!action.equals("plant")) {
+                    if (action != Action.Opcode.PLANT) {
                         return new Objective(fPos, Action.makeCrouchAction());
                     }
-                } else if (action.equals("plant") && bestObjective.getPosition().equals(fPos)){
+                } else if (action == Action.Opcode.PLANT && bestObjective.getPosition().equals(fPos)){
                     return new Objective(fPos, Action.makeStandAction());
                 }
             } else if (!fIsStanding) {
@@ -271,6 +360,101 @@ public abstract class Child {
         return bestObjective;
     }
 
+    // plays out what the child was going to do against the other ways it
+    // could fight, and keeps whichever comes out best
+    private Objective fight(Objective planned, List<Child> enemies) {
+        List<Objective> options = new ArrayList<>(5);
+        List<Action> firstTurns = new ArrayList<>(5);
+        addOption(planned, options, firstTurns);
+        addOption(launchAtNearest(enemies), options, firstTurns);
+        if (fIsStanding && !fIsDefending) {
+            addOption(new Objective(fPos, Action.makeCrouchAction()), options, firstTurns);
+        }
+        if (isHoldingShield() && !fIsDefending) {
+            addOption(new Objective(fPos, Action.makeDefendAction()), options, firstTurns);
+        }
+        addOption(cover(), options, firstTurns);
+        return options.get(CombatSearch.choose(field, this, enemies, firstTurns));
+    }
+
+    // adds an option unless it does the same this turn as one already added
+    private void addOption(Objective option, List<Objective> options, List<Action> firstTurns) {
+        if (option == null) {
+            return;
+        }
+        Action firstTurn = option.getAction();
+        if (!option.getPosition().equals(fPos)) {
+            int[] route = field.distancesFrom(this).routeTo(option.getPosition());
+            firstTurn = route != null && route.length > 1
+                    ? Action.makeMoveAction(Point.of(route[1])) : Action.makeIdleAction();
+        }
+        if (!firstTurns.contains(firstTurn)) {
+            options.add(option);
+            firstTurns.add(firstTurn);
+        }
+    }
+
+    // launches at the nearest enemy that can be hit from here, standing up
+    // first if need be
+    private Objective launchAtNearest(List<Child> enemies) {
+        Point aim = null;
+        double shortestDistance = Double.MAX_VALUE;
+        for (Child enemy : enemies) {
+            double distance = fPos.distance(enemy.getPosition());
+            if (distance < shortestDistance && !enemy.isDefending()) {
+                Point shot = Route.shootAt(fPos, enemy.getPosition());
+                if (shot != null) {
+                    shortestDistance = distance;
+                    aim = shot;
+                }
+            }
+        }
+        if (aim == null) {
+            return null;
+        }
+        Action launch = Action.makeLaunchAction(aim, isHoldingRapidFireLauncher());
+        if (!enoughAmmoFor(launch)) {
+            return null;
+        } else if (!fIsStanding) {
+            return new Objective(fPos, Action.makeStandAction());
+        } else if (fIsDefending) {
+            return new Objective(fPos, Action.makeUndefendAction());
+        }
+        return new Objective(fPos, launch);
+    }
+
+    // the closest space within a move that no enemy can see
+    private Objective cover() {
+        Stencil step = Stencil.forStep(stepDistance());
+        int x = fPos.getX();
+        int y = fPos.getY();
+        int closest = -1;
+        int closestDistance = Integer.MAX_VALUE;
+        for (int k = 0; k < step.size(); k++) {
+            int cell = step.neighbor(x, y, k);
+            if (cell < 0 || field.threatCells().get(cell) || !field.isEmptyAt(cell)) {
+                continue;
+            }
+            int run = Point.x(cell) - x;
+            int rise = Point.y(cell) - y;
+            if (run * run + rise * rise < closestDistance && Route.openPath(x, y, Point.x(cell), Point.y(cell))) {
+                closestDistance = run * run + rise * rise;
+                closest = cell;
+            }
+        }
+        return closest < 0 ? null : new Objective(Point.of(closest), Action.makeIdleAction());
+    }
+
+    // true if an objective from an earlier turn can be kept without
+    // choosing again, which is only the case while still walking to it
+    private boolean canResume(Objective objective) {
+        return objective != null
+                && objective.getPosition() != null
+                && !objective.getPosition().equals(fPos)
+                && field.isEmptyAt(objective.getPosition())
+                && objective.getAction().getOpcode() != Action.Opcode.LAUNCH;
+    }
+
     protected Objective crouch() {
         if (fIsStanding && !fIsDefending) {
             return new Objective(fPos, Action.makeCrouchAction());
@@ -281,15 +465,12 @@ public abstract class Child {
     protected Objective randomMove() {
         List<Point> randomPoints = new ArrayList<>(128);
         List<Point> unexploredPoints = new ArrayList<>(128);
-        for (int i = 0; i < Constants.FIELD_DIMENSION; i++) {
-            for (int j = 0; j < Constants.FIELD_DIMENSION; j++) {
-                Point point = new Point(i, j);
-                if (field.type(point) == Constants.UNKNOWN) {
-                    randomPoints.add(point);
-                    if (!field.canEnemySee(point)) {
-                        unexploredPoints.add(point);
-                    }
-                }
+        BitBoard unknown = field.cellsOfType(Constants.UNKNOWN);
+        for (int cell = unknown.nextSetBit(0); cell >= 0; cell = unknown.nextSetBit(cell + 1)) {
+            Point point = Point.of(cell);
+            randomPoints.add(point);
+            if (!field.canEnemySee(point)) {
+                unexploredPoints.add(point);
             }
         }
         Point randomPoint;
@@ -298,10 +479,10 @@ public abstract class Child {
         }
         if (randomPoints.isEmpty()) {
             do {
-                randomPoint = new Point(RANDOM.nextInt(Constants.FIELD_DIMENSION), RANDOM.nextInt(Constants.FIELD_DIMENSION));
+                randomPoint = Point.of(random.nextInt(Constants.FIELD_DIMENSION), random.nextInt(Constants.FIELD_DIMENSION));
             } while (!field.isEmptyAt(randomPoint));
         } else {
-            randomPoint = randomPoints.get(RANDOM.nextInt(randomPoints.size()));
+            randomPoint = randomPoints.get(random.nextInt(randomPoints.size()));
         }
         return new Objective(randomPoint, Action.makeIdleAction());
     }
@@ -316,7 +497,55 @@ public abstract class Child {
     }
 
     public final Action chooseAction() {
-        Objective currentObj = chooseObjective();
+        return commit(chooseObjective());
+    }
+
+    /**
+     * Determines if an objective chosen before teammates committed their
+     * actions this turn can still be carried out as chosen.
+     *
+     * @param objective the objective that was chosen
+     * @return false if a teammate has since claimed what the objective needs
+     */
+    public final boolean isStillAvailable(Objective objective) {
+        Point position = objective.getPosition();
+        Action action = objective.getAction();
+        if (position == null || !position.equals(fPos) && !field.isEmptyAt(position)) {
+            return false;
+        }
+        switch (action.getOpcode()) {
+            case PICKUP:
+                return !field.isPickupClaimedByOther(this, action.getTarget());
+            case PLANT:
+                return field.isEmptyAt(action.getTarget());
+            case LAUNCH:
+                // a launch from here must still hit an enemy first, and not
+                // a teammate that has since moved into the way
+                return !position.equals(fPos) || isEnemyAt(Route.hitCell(fPos, action.getTarget()));
+            default:
+                return true;
+        }
+    }
+
+    private boolean isEnemyAt(int cell) {
+        for (Child enemy : field.enemies()) {
+            if (enemy.getPosition().exists() && enemy.getPosition().index() == cell) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Turns an objective into this turn's action, reserving the spaces a move
+     * passes through so teammates that commit later stay out of the way. The
+     * next few moves of a planned route are reserved as well, after steering
+     * them around the moves teammates reserved before.
+     *
+     * @param currentObj the objective to work toward
+     * @return the action to send to the game engine
+     */
+    public final Action commit(Objective currentObj) {
 //        if (!enoughAmmoFor(currentObj.getAction())) {
 //            Objective reload = reload();
 //            Objective findItem = findItem();
@@ -336,33 +565,79 @@ public abstract class Child {
 //            }
 //        }
         Point position = currentObj.getPosition();
+        ReservationTable reservations = field.reservations();
         if (position.equals(fPos)) {
             currentAction = currentObj.getAction();
+            reservations.reserve(fPos, fPos);
         } else {
-            Point move = Route.firstMove(fPos, position, stepDistance());
-            blockedSpaces.addAll(Route.straightRoute(fPos, move));
-            currentAction = Action.makeMoveAction(move);
+            Point move = null;
+            if (plan.isFor(fPos, position, stepDistance())) {
+                move = plan.nextStep(field);
+            }
+            if (move == null) {
+                DistanceField distances = field.distancesFrom(this);
+                if (!distances.isRouteOpen(position)) {
+                    distances = field.refreshDistancesFrom(this);
+                }
+                int[] route = distances.routeTo(position);
+                if (route != null && route.length > 1) {
+                    plan.follow(route, stepDistance());
+                    move = plan.nextStep(field);
+                } else {
+                    plan.clear();
+                    if (!distances.isComplete()) {
+                        // the search may have run out of time before getting there
+                        move = Route.firstMove(fPos, position, stepDistance());
+                    }
+                }
+            }
+            if (move != null && plan.isFor(move, position, stepDistance())) {
+                reservations.coordinate(plan, stepDistance());
+                reservations.reserve(fPos, plan);
+            } else {
+                reservations.reserve(fPos, move == null ? fPos : move);
+            }
+            if (move == null || move.equals(fPos)) {
+                // a route may wait a turn for a teammate to pass
+                currentAction = Action.makeIdleAction();
+            } else {
+                field.reserve(this, Route.straightRoute(fPos, move));
+                currentAction = Action.makeMoveAction(move);
+            }
+        }
+
+        // hold on to the item being gone for, so teammates leave it alone
+        field.claims().releasePickups(this);
+        Action goal = currentObj.getAction();
+        if (goal.getOpcode() == Action.Opcode.PICKUP && currentAction.getOpcode() != Action.Opcode.IDLE) {
+            field.claims().claimPickup(this, goal.getTarget().index(), movesTo(position));
         }
         return currentAction;
     }
 
+    /**
+     * Gets how many moves this child needs to reach a space this turn.
+     *
+     * @param position the space
+     * @return the number of moves, or DistanceField.UNREACHABLE
+     */
+    final int movesTo(Point position) {
+        return position.equals(fPos) ? 0 : field.distancesFrom(this).movesTo(position);
+    }
+
     protected boolean enoughAmmoFor(Action action) {
         return action.ammoRequired() <= fPaintballs;
     }
 
     protected Objective reload() {
-        Point closestAmmo = null;
-        double shortestDistance = Double.MAX_VALUE;
-        for (int i = 0; i < Constants.FIELD_DIMENSION; i++) {
-            for (int j = 0; j < Constants.FIELD_DIMENSION; j++) {
-                Point point = new Point(i, j);
-                if (field.type(point) < 0 && fPos.distance(point) < shortestDistance && !field.isChildPickingUp(point)) {
-                    closestAmmo = point;
-                    shortestDistance = fPos.distance(point);
-                }
+        BitBoard ammo = reloadCandidates;
+        ammo.copyFrom(field.ammoCells());
+        for (int cell = ammo.nextSetBit(0); cell >= 0; cell = ammo.nextSetBit(cell + 1)) {
+            if (field.isPickupClaimedByOther(this, Point.of(cell))) {
+                ammo.clear(cell);
             }
         }
-        Objective pickup = pickup(closestAmmo);
+        Objective pickup = pickup(field.nearestByPath(this, ammo));
         if (pickup == null) {
             return null;
         }
@@ -370,11 +645,11 @@ public abstract class Child {
     }
 
     protected Objective pickup(Point target) {
-        if (target == null || field.isChildPickingUp(target)) {
+        if (target == null || field.isPickupClaimedByOther(this, target)) {
             return null;
         }
         Point goTo = Route.closestPointNextTo(fPos, target);
-        if (goTo != null && !field.isChildPickingUp(target)) {
+        if (goTo != null && !field.isPickupClaimedByOther(this, target)) {
             return new Objective(goTo, Action.makePickupItemAction(target));
         }
 
@@ -405,7 +680,10 @@ public abstract class Child {
     }
 
     private final double getMoveImportance(Point moveTo) {
-        double moves = Math.ceil(fPos.distance(moveTo) / stepDistance());
+        int moves = field.distancesFrom(this).movesTo(moveTo);
+        if (moves == DistanceField.UNREACHABLE) {
+            return 0;
+        }
         return 1.0 / moves;
     }
 
@@ -457,19 +735,21 @@ public abstract class Child {
 //        FLAG_POSITIONS.add(new Point(25, 15));
 //        FLAG_POSITIONS.add(new Point(10, 25));
 //        FLAG_POSITIONS.add(new Point(20, 25));
-        FLAG_POSITIONS.add(new Point(5, 5));
-        FLAG_POSITIONS.add(new Point(5, 25));
-        FLAG_POSITIONS.add(new Point(15, 15));
-        FLAG_POSITIONS.add(new Point(25, 5));
-        FLAG_POSITIONS.add(new Point(25, 25));
+        FLAG_POSITIONS.add(Point.of(5, 5));
+        FLAG_POSITIONS.add(Point.of(5, 25));
+        FLAG_POSITIONS.add(Point.of(15, 15));
+        FLAG_POSITIONS.add(Point.of(25, 5));
+        FLAG_POSITIONS.add(Point.of(25, 25));
     }
 
     private boolean hasFlag(Point point) {
         if (field.type(point) == Constants.RED_FLAG) {
             return true;
         }
-        for (Point adjacentPoint : point.pointsWithin(1.5)) {
-            if (field.type(adjacentPoint) == Constants.RED_FLAG) {
+        Stencil adjacent = Stencil.of(1.5);
+        for (int i = 0; i < adjacent.size(); i++) {
+            int cell = adjacent.neighbor(point.getX(), point.getY(), i);
+            if (cell >= 0 && field.type(cell) == Constants.RED_FLAG) {
                 return true;
             }
         }
@@ -0,0 +1,99 @@
+/**
+ * Records what each child on our team has claimed this turn: the items it is
+ * going to pick up and the spaces its move passes through.
+ *
+ * Everything is indexed by cell, so asking who claimed a space takes constant
+ * time. When two children want the same item, the one that can get next to
+ * it in fewer moves keeps it.
+ */
+public class ClaimRegistry {
+
+    private final Child[] pickupClaimants = new Child[Constants.NUM_CELLS];
+    private final int[] pickupMoves = new int[Constants.NUM_CELLS];
+    private final BitBoard pickupCells = new BitBoard();
+
+    private final Child[] reservedBy = new Child[Constants.NUM_CELLS];
+    private final BitBoard reservedCells = new BitBoard();
+
+    /**
+     * Forgets every claim, ready for a new turn.
+     */
+    public void clear() {
+        for (int cell = pickupCells.nextSetBit(0); cell >= 0; cell = pickupCells.nextSetBit(cell + 1)) {
+            pickupClaimants[cell] = null;
+        }
+        for (int cell = reservedCells.nextSetBit(0); cell >= 0; cell = reservedCells.nextSetBit(cell + 1)) {
+            reservedBy[cell] = null;
+        }
+        pickupCells.clear();
+        reservedCells.clear();
+    }
+
+    /**
+     * Claims an item for a child, unless another child has already claimed it
+     * and can get to it at least as quickly.
+     *
+     * @param child the child going for the item
+     * @param cell where the item is
+     * @param moves how many moves the child needs to get next to it
+     * @return true if the child now holds the claim
+     */
+    public boolean claimPickup(Child child, int cell, int moves) {
+        Child claimant = pickupClaimants[cell];
+        if (claimant != null && claimant != child && pickupMoves[cell] <= moves) {
+            return false;
+        }
+        pickupClaimants[cell] = child;
+        pickupMoves[cell] = moves;
+        pickupCells.set(cell);
+        return true;
+    }
+
+    /**
+     * Gives up any item a child has claimed.
+     *
+     * @param child the child
+     */
+    public void releasePickups(Child child) {
+        for (int cell = pickupCells.nextSetBit(0); cell >= 0; cell = pickupCells.nextSetBit(cell + 1)) {
+            if (pickupClaimants[cell] == child) {
+                pickupClaimants[cell] = null;
+                pickupCells.clear(cell);
+            }
+        }
+    }
+
+    /**
+     * @param cell where an item is
+     * @return the child that claimed it, or null
+     */
+    public Child pickupClaimant(int cell) {
+        return pickupClaimants[cell];
+    }
+
+    /**
+     * Marks a space as taken by a child's move.
+     *
+     * @param child the child that is moving
+     * @param cell the space
+     * @return false if another child had already taken it
+     */
+    public boolean reserve(Child child, int cell) {
+        if (reservedBy[cell] != null && reservedBy[cell] != child) {
+            return false;
+        }
+        reservedBy[cell] = child;
+        reservedCells.set(cell);
+        return true;
+    }
+
+    /**
+     * Gets the spaces taken by moves this turn. The board is owned by the
+     * registry and must not be changed.
+     *
+     * @return the reserved spaces
+     */
+    public BitBoard reservedCells() {
+        return reservedCells;
+    }
+}
@@ -0,0 +1,355 @@
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Chooses what a child does in a fight by playing each option out a few
+ * turns ahead many times and keeping the one that comes out best.
+ *
+ * A playout works on a small copy of the fight: for the child and each enemy
+ * in range, where it stands, its stance, whether it holds a shield and how
+ * many paintballs it has. Terrain is not copied; playouts read it straight
+ * from the field, which does not change while a turn is being decided, so
+ * starting a playout only copies a few short arrays. The option being tried
+ * is played on the first turn, and after that every child acts at random,
+ * launching at an opponent in range more often than anything else. Within a
+ * turn, stance changes happen first, then launches, then moves. Hitting an
+ * enemy scores a point and being hit loses one, with later turns counting
+ * for less.
+ *
+ * A search runs entirely in the thread that asks for it. The scheduler has
+ * every child work toward its objective at the same time on its thread
+ * pool, so children in different fights search in parallel; only a child
+ * that has to choose again while the team commits searches in the
+ * scheduler's own thread. Random choices come from a generator seeded by
+ * the child's own, so which thread runs a search does not change it.
+ * Playouts stop after a set number, or sooner if the search's time slice or
+ * the turn runs out.
+ */
+public final class CombatSearch {
+
+    // turns each playout looks ahead, counting the option being tried
+    private static final int DEPTH = 3;
+
+    // how many playouts each option gets with time to spare
+    private static final int PLAYOUTS = 256;
+
+    // how long one search may take
+    private static final long TIME_SLICE_NANOS = 10000000L;
+
+    // how much each turn counts compared to the one before
+    private static final double DISCOUNT = 0.7;
+
+    // how likely a child that can launch at an opponent in range is to do so
+    private static final double LAUNCH_CHANCE = 0.6;
+
+    private static final int RANGE_SQUARED = Constants.MAX_LAUNCH_DISTANCE * Constants.MAX_LAUNCH_DISTANCE;
+
+    // bias that keeps packed aim offsets positive
+    private static final int BIAS = 32;
+
+    /**
+     * Plays out each option and picks the best.
+     *
+     * @param field the field this turn
+     * @param child the child choosing
+     * @param enemies the enemies within launch distance of the child
+     * @param firstTurns what the child does this turn for each option; the
+     * first is what it would do without searching, and is kept on a tie
+     * @return the index of the option chosen
+     */
+    public static int choose(Field field, Child child, List<Child> enemies, List<Action> firstTurns) {
+        if (firstTurns.size() < 2) {
+            return 0;
+        }
+        State root = new State(enemies.size() + 1);
+        root.set(0, child);
+        for (int i = 0; i < enemies.size(); i++) {
+            root.set(i + 1, enemies.get(i));
+        }
+        Action[] options = firstTurns.toArray(new Action[firstTurns.size()]);
+        long stopAt = System.nanoTime() + TIME_SLICE_NANOS;
+
+        double[] totals = new Playouts(field, root, options, PLAYOUTS, stopAt, child.random().nextLong()).play();
+
+        int best = 0;
+        double bestMean = -Double.MAX_VALUE;
+        for (int option = 0; option < options.length; option++) {
+            double playouts = totals[2 * option + 1];
+            if (playouts > 0 && totals[2 * option] / playouts > bestMean) {
+                bestMean = totals[2 * option] / playouts;
+                best = option;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * The children in a fight. The child choosing is always first.
+     */
+    private static final class State {
+
+        final int size;
+        final int[] cell;
+        final boolean[] standing;
+        final boolean[] defending;
+        final boolean[] shield;
+        final int[] paintballs;
+
+        State(int size) {
+            this.size = size;
+            cell = new int[size];
+            standing = new boolean[size];
+            defending = new boolean[size];
+            shield = new boolean[size];
+            paintballs = new int[size];
+        }
+
+        void set(int i, Child child) {
+            cell[i] = child.getPosition().index();
+            standing[i] = child.isStanding();
+            defending[i] = child.isDefending();
+            shield[i] = child.isHoldingShield();
+            paintballs[i] = child.getPaintballCount();
+        }
+
+        void copyFrom(State other) {
+            System.arraycopy(other.cell, 0, cell, 0, size);
+            System.arraycopy(other.standing, 0, standing, 0, size);
+            System.arraycopy(other.defending, 0, defending, 0, size);
+            System.arraycopy(other.shield, 0, shield, 0, size);
+            System.arraycopy(other.paintballs, 0, paintballs, 0, size);
+        }
+
+        int childAt(int at) {
+            for (int i = 0; i < size; i++) {
+                if (cell[i] == at) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * The playouts of every option in turn.
+     */
+    private static final class Playouts {
+
+        private final Field field;
+        private final State root;
+        private final Action[] options;
+        private final int playouts;
+        private final long stopAt;
+        private final long seed;
+
+        // the playout being run and this turn's action for each child in it
+        private State state;
+        private Action.Opcode[] opcodes;
+        private int[] targets;
+        private int[] balls;
+        private Random random;
+
+        Playouts(Field field, State root, Action[] options, int playouts, long stopAt, long seed) {
+            this.field = field;
+            this.root = root;
+            this.options = options;
+            this.playouts = playouts;
+            this.stopAt = stopAt;
+            this.seed = seed;
+        }
+
+        /**
+         * @return the total score and number of playouts for each option,
+         * one after the other
+         */
+        double[] play() {
+            state = new State(root.size);
+            opcodes = new Action.Opcode[root.size];
+            targets = new int[root.size];
+            balls = new int[root.size];
+            random = new Random(seed);
+            double[] totals = new double[2 * options.length];
+            int played = 0;
+            for (int n = 0; n < playouts && System.nanoTime() < stopAt && !TurnDeadline.nearlySpent(); n++) {
+                for (int option = 0; option < options.length; option++) {
+                    totals[2 * option] += playOut(options[option]);
+                    totals[2 * option + 1]++;
+                    played++;
+                }
+            }
+            Metrics.count(Metrics.PLAYOUTS, played);
+            return totals;
+        }
+
+        private double playOut(Action first) {
+            state.copyFrom(root);
+            double score = 0;
+            double weight = 1;
+            for (int turn = 0; turn < DEPTH; turn++) {
+                for (int i = 0; i < state.size; i++) {
+                    if (turn == 0 && i == 0) {
+                        setAction(0, first);
+                    } else {
+                        chooseAtRandom(i);
+                    }
+                }
+                score += weight * playTurn();
+                weight *= DISCOUNT;
+            }
+            return score;
+        }
+
+        private void setAction(int i, Action action) {
+            opcodes[i] = action.getOpcode();
+            Point target = action.getTarget();
+            if (opcodes[i] == Action.Opcode.MOVE) {
+                targets[i] = target.index();
+            } else if (opcodes[i] == Action.Opcode.LAUNCH) {
+                targets[i] = pack(target.getX() - Point.x(state.cell[i]), target.getY() - Point.y(state.cell[i]));
+                balls[i] = action.ammoRequired();
+            }
+        }
+
+        private void chooseAtRandom(int i) {
+            if (state.standing[i] && !state.defending[i] && state.paintballs[i] > 0
+                    && random.nextDouble() < LAUNCH_CHANCE) {
+                int opponent = i == 0 ? 1 + random.nextInt(state.size - 1) : 0;
+                int dx = Point.x(state.cell[opponent]) - Point.x(state.cell[i]);
+                int dy = Point.y(state.cell[opponent]) - Point.y(state.cell[i]);
+                if (dx * dx + dy * dy <= RANGE_SQUARED) {
+                    opcodes[i] = Action.Opcode.LAUNCH;
+                    targets[i] = pack(dx, dy);
+                    balls[i] = 1;
+                    return;
+                }
+            }
+            switch (random.nextInt(4)) {
+                case 0:
+                    Stencil step = Stencil.forStep(stepDistance(i));
+                    int k = random.nextInt(step.size());
+                    int to = step.neighbor(Point.x(state.cell[i]), Point.y(state.cell[i]), k);
+                    opcodes[i] = to < 0 ? Action.Opcode.IDLE : Action.Opcode.MOVE;
+                    targets[i] = to;
+                    break;
+                case 1:
+                    opcodes[i] = state.standing[i] ? Action.Opcode.CROUCH : Action.Opcode.STAND;
+                    break;
+                case 2:
+                    opcodes[i] = state.defending[i] ? Action.Opcode.UNDEFEND
+                            : state.shield[i] ? Action.Opcode.DEFEND : Action.Opcode.IDLE;
+                    break;
+                default:
+                    opcodes[i] = Action.Opcode.IDLE;
+            }
+        }
+
+        // plays one turn's actions and returns the points scored
+        private int playTurn() {
+            for (int i = 0; i < state.size; i++) {
+                switch (opcodes[i]) {
+                    case CROUCH:
+                        state.standing[i] = false;
+                        break;
+                    case STAND:
+                        state.standing[i] = true;
+                        break;
+                    case DEFEND:
+                        state.defending[i] = state.shield[i];
+                        break;
+                    case UNDEFEND:
+                        state.defending[i] = false;
+                        break;
+                    default:
+                        break;
+                }
+            }
+            int score = 0;
+            for (int i = 0; i < state.size; i++) {
+                if (opcodes[i] != Action.Opcode.LAUNCH || !state.standing[i] || state.defending[i]) {
+                    continue;
+                }
+                for (int b = 0; b < balls[i] && state.paintballs[i] > 0; b++) {
+                    state.paintballs[i]--;
+                    int hit = hitChild(i, unpackX(targets[i]), unpackY(targets[i]));
+                    if (hit < 0 || (hit == 0) == (i == 0) || state.defending[hit] && state.shield[hit]) {
+                        continue;
+                    }
+                    score += i == 0 ? 1 : -1;
+                }
+            }
+            for (int i = 0; i < state.size; i++) {
+                if (opcodes[i] == Action.Opcode.MOVE && canMove(i, targets[i])) {
+                    state.cell[i] = targets[i];
+                }
+            }
+            return score;
+        }
+
+        // follows a paintball's flight, as ShotSolver.hitCell does, and
+        // returns which child it hits, or -1
+        private int hitChild(int shooter, int dx, int dy) {
+            if (!Rays.covers(dx, dy) || dx == 0 && dy == 0) {
+                return -1;
+            }
+            int fromX = Point.x(state.cell[shooter]);
+            int fromY = Point.y(state.cell[shooter]);
+            int[] ray = Rays.ray(dx, dy);
+            double[] heights = Rays.flightHeights(ray.length - 1);
+            for (int i = 1; i < ray.length; i++) {
+                int x = fromX + Rays.offsetX(ray[i]);
+                int y = fromY + Rays.offsetY(ray[i]);
+                if (x < 0 || x >= Constants.FIELD_DIMENSION || y < 0 || y >= Constants.FIELD_DIMENSION
+                        || heights[i] <= 0) {
+                    return -1;
+                }
+                int cell = Point.index(x, y);
+                int child = state.childAt(cell);
+                int height = child < 0 ? field.terrainHeight(cell) : state.standing[child] ? 9 : 3;
+                if (heights[i] <= height) {
+                    return child;
+                }
+            }
+            return -1;
+        }
+
+        private boolean canMove(int i, int to) {
+            int fromX = Point.x(state.cell[i]);
+            int fromY = Point.y(state.cell[i]);
+            int dx = Point.x(to) - fromX;
+            int dy = Point.y(to) - fromY;
+            if (dx * dx + dy * dy > stepDistance(i) * stepDistance(i) || !Rays.covers(dx, dy)) {
+                return false;
+            }
+            int[] ray = Rays.ray(dx, dy);
+            for (int k = 1; k < ray.length; k++) {
+                int cell = Point.index(fromX + Rays.offsetX(ray[k]), fromY + Rays.offsetY(ray[k]));
+                // the field still counts the children in the fight where they
+                // started, so only where they are now blocks the way
+                boolean vacated = root.childAt(cell) >= 0;
+                if (!vacated && !field.isEmptyAt(cell) || state.childAt(cell) >= 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int stepDistance(int i) {
+            return state.standing[i] ? state.defending[i] ? 2 : 3 : 1;
+        }
+    }
+
+    private static int pack(int dx, int dy) {
+        return (dx + BIAS) << 8 | (dy + BIAS);
+    }
+
+    private static int unpackX(int packed) {
+        return (packed >> 8) - BIAS;
+    }
+
+    private static int unpackY(int packed) {
+        return (packed & 0xff) - BIAS;
+    }
+
+    private CombatSearch() {
+    }
+}
@@ -23,6 +23,11 @@ public class Constants
      */
     public static final int FIELD_DIMENSION = 31;
 
+    /**
+     * The number of spaces on the field.
+     */
+    public static final int NUM_CELLS = FIELD_DIMENSION * FIELD_DIMENSION;
+
     /**
      * Field encodings as integers.
      */
@@ -48,6 +53,13 @@ public class Constants
      */
     public static final int MAX_LAUNCH_DISTANCE = 24;
 
+    /**
+     * How long we allow ourselves to decide a turn, in milliseconds. This is
+     * kept well under what the game engine allows so the actions still make
+     * it back in time on a slow machine.
+     */
+    public static final int TURN_TIME_BUDGET_MILLIS = 500;
+
     /**
      * Inventory encodings.
      */
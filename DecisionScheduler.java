@@ -0,0 +1,219 @@
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Decides what each child on our team does this turn.
+ *
+ * Ranking objectives only reads the field, so every child's objectives are
+ * ranked at the same time, before any child has claimed anything, on a
+ * small thread pool shared by every scheduler in the process. With a single
+ * processor there is nothing to gain, so they are ranked one after another
+ * instead. The team's objectives are then shared out by a TeamAssignment,
+ * so two children never chase the same item or flag, and whoever gets the
+ * most out of it takes it. Working toward an objective, which plays out any
+ * fight the child is in, only reads the field as well, so every child
+ * works toward its objective at the same time on the same pool. Each
+ * child's objective is then committed one child at a time in team order: a
+ * child whose objective was taken by a teammate that committed earlier (a
+ * space someone is moving through, a shot someone is now in the way of), or
+ * that was left without one, chooses again against the committed state.
+ */
+public class DecisionScheduler {
+
+    // one pool of daemon threads for every scheduler, so players created for
+    // benchmarks and simulated matches do not each leave threads behind
+    private static final ExecutorService EXECUTOR = createExecutor();
+
+    private final Child[] children;
+    private final Field field;
+    private final ExecutorService executor = EXECUTOR;
+    private final TeamAssignment assignment = new TeamAssignment(Constants.NUM_CHILDREN_PER_TEAM);
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private final Future<Map<Objective, Double>>[] futures = new Future[Constants.NUM_CHILDREN_PER_TEAM];
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private final Future<Objective>[] pursuits = new Future[Constants.NUM_CHILDREN_PER_TEAM];
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private final Map<Objective, Double>[] rankings = new Map[Constants.NUM_CHILDREN_PER_TEAM];
+    private final Objective[] chosen = new Objective[Constants.NUM_CHILDREN_PER_TEAM];
+    private final Action[] actions = new Action[Constants.NUM_CHILDREN_PER_TEAM];
+    // how long each child has spent deciding this turn, for Metrics.CHOOSE
+    private final long[] choosingNanos = new long[Constants.NUM_CHILDREN_PER_TEAM];
+
+    // reseed every child's random choices from the turn number each turn
+    private boolean reproducible = false;
+
+    public DecisionScheduler(Child[] children, Field field) {
+        this.children = children;
+        this.field = field;
+    }
+
+    private static ExecutorService createExecutor() {
+        int threads = Math.min(Runtime.getRuntime().availableProcessors(), Constants.NUM_CHILDREN_PER_TEAM);
+        return threads > 1 ? Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable task) {
+                Thread thread = new Thread(task, "decision");
+                thread.setDaemon(true);
+                return thread;
+            }
+        }) : null;
+    }
+
+    /**
+     * Makes each child's random choices depend only on the turn and the
+     * child, so that replaying a recorded game makes the same choices as
+     * were recorded. Choices cut short by the turn's time budget can still
+     * differ.
+     *
+     * @param reproducible true to reseed the children every turn
+     */
+    public void setReproducible(boolean reproducible) {
+        this.reproducible = reproducible;
+    }
+
+    /**
+     * Decides this turn's action for every child on our team.
+     *
+     * @return the actions, in team order; the array is reused every turn
+     */
+    public Action[] decide() {
+        if (reproducible) {
+            for (int i = 0; i < Constants.NUM_CHILDREN_PER_TEAM; i++) {
+                children[i].reseed((long) field.turnNumber() * Constants.NUM_CHILDREN_PER_TEAM + i);
+            }
+        }
+        rank();
+
+        boolean assigned = false;
+        try {
+            assigned = assignment.assign(rankings, chosen);
+        } catch (Exception e) {
+            // fall back on every child's own favourite
+        }
+        if (!assigned) {
+            for (int i = 0; i < chosen.length; i++) {
+                chosen[i] = rankings[i] == null ? null : Child.favourite(rankings[i]);
+            }
+        }
+        pursue();
+
+        // hold the assigned items up front, so teammates that commit first
+        // leave them alone
+        for (int i = 0; i < chosen.length; i++) {
+            Objective objective = chosen[i];
+            if (objective != null && objective.getPosition() != null
+                    && objective.getAction().getOpcode() == Action.Opcode.PICKUP) {
+                field.claims().claimPickup(children[i], objective.getAction().getTarget().index(),
+                        children[i].movesTo(objective.getPosition()));
+            }
+        }
+
+        for (int i = 0; i < actions.length; i++) {
+            Child child = children[i];
+            long start = Metrics.start();
+            try {
+                Objective objective = chosen[i];
+                if (objective == null || !child.isStillAvailable(objective)) {
+                    objective = child.chooseObjective();
+                }
+                actions[i] = child.commit(objective);
+            } catch (Exception e) {
+                actions[i] = Action.makeIdleAction();
+            }
+            Metrics.recordNanos(Metrics.CHOOSE, choosingNanos[i] + Metrics.elapsed(start));
+        }
+        return actions;
+    }
+
+    // ranks every child's objectives, at the same time when there is more
+    // than one processor
+    private void rank() {
+        if (executor == null) {
+            for (int i = 0; i < rankings.length; i++) {
+                long start = Metrics.start();
+                try {
+                    rankings[i] = children[i].rankObjectives();
+                } catch (Exception e) {
+                    rankings[i] = null;
+                }
+                choosingNanos[i] = Metrics.elapsed(start);
+            }
+            return;
+        }
+        for (int i = 0; i < futures.length; i++) {
+            final int index = i;
+            futures[i] = executor.submit(new Callable<Map<Objective, Double>>() {
+                @Override
+                public Map<Objective, Double> call() {
+                    long start = Metrics.start();
+                    try {
+                        return children[index].rankObjectives();
+                    } finally {
+                        // read back once the future is done
+                        choosingNanos[index] = Metrics.elapsed(start);
+                    }
+                }
+            });
+        }
+        for (int i = 0; i < rankings.length; i++) {
+            rankings[i] = result(futures[i]);
+        }
+    }
+
+    // works toward each child's chosen objective, at the same time when there
+    // is more than one processor; each child plays out its own fights
+    private void pursue() {
+        if (executor == null) {
+            for (int i = 0; i < chosen.length; i++) {
+                long start = Metrics.start();
+                try {
+                    chosen[i] = chosen[i] == null ? null : children[i].pursue(chosen[i]);
+                } catch (Exception e) {
+                    chosen[i] = null;
+                }
+                choosingNanos[i] += Metrics.elapsed(start);
+            }
+            return;
+        }
+        for (int i = 0; i < pursuits.length; i++) {
+            if (chosen[i] == null) {
+                pursuits[i] = null;
+                continue;
+            }
+            final int index = i;
+            final Objective objective = chosen[i];
+            pursuits[i] = executor.submit(new Callable<Objective>() {
+                @Override
+                public Objective call() {
+                    long start = Metrics.start();
+                    try {
+                        return children[index].pursue(objective);
+                    } finally {
+                        // read back once the future is done
+                        choosingNanos[index] += Metrics.elapsed(start);
+                    }
+                }
+            });
+        }
+        for (int i = 0; i < chosen.length; i++) {
+            chosen[i] = pursuits[i] == null ? null : result(pursuits[i]);
+        }
+    }
+
+    // what a task on the pool returned, or null if it failed
+    private static <T> T result(Future<T> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/**
+ * The number of moves it takes a child to reach every space on the field,
+ * found with a single breadth-first search from the child's position. If the
+ * turn runs out of time the search stops early and spaces it did not get to
+ * are reported as unreachable.
+ *
+ * Besides the move counts the search records the first step of a shortest
+ * route to every space it reaches, so both "how far is it" and "which way do
+ * I go" are answered with an array lookup once the search has run.
+ */
+public class DistanceField {
+
+    /**
+     * The number of moves reported for spaces that cannot be reached.
+     */
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private final int[] moves = new int[Constants.NUM_CELLS];
+    private final int[] firstStep = new int[Constants.NUM_CELLS];
+    private final int[] cameFrom = new int[Constants.NUM_CELLS];
+    private final int[] queue = new int[Constants.NUM_CELLS];
+    private final int[] seen = new int[Constants.NUM_CELLS];
+    private int generation = 0;
+
+    // how many cells to expand between checks of the turn deadline
+    private static final int DEADLINE_POLL_INTERVAL = 64;
+
+    private int source = -1;
+    private int stepDistance;
+    private int turnNumber = -1;
+    private boolean complete;
+
+    /**
+     * Runs the search from a point, replacing any previous results.
+     *
+     * @param from where the child is standing
+     * @param stepDistance how far a single move can go
+     * @param turn the turn the results are valid for
+     */
+    public void compute(Point from, int stepDistance, int turn) {
+        generation++;
+        source = from.index();
+        this.stepDistance = stepDistance;
+        turnNumber = turn;
+        complete = false;
+
+        Stencil stencil = Stencil.forStep(stepDistance);
+        int head = 0;
+        int tail = 0;
+        seen[source] = generation;
+        moves[source] = 0;
+        firstStep[source] = source;
+        cameFrom[source] = -1;
+        queue[tail++] = source;
+        while (head < tail) {
+            if (head % DEADLINE_POLL_INTERVAL == DEADLINE_POLL_INTERVAL - 1 && TurnDeadline.expired()) {
+                // out of time, so spaces that have not been reached yet
+                // are left unreachable
+                break;
+            }
+            int current = queue[head++];
+            int x = Point.x(current);
+            int y = Point.y(current);
+            for (int k = 0; k < stencil.size(); k++) {
+                int neighbor = stencil.neighbor(x, y, k);
+                if (neighbor < 0 || seen[neighbor] == generation
+                        || !Route.openPath(x, y, Point.x(neighbor), Point.y(neighbor))) {
+                    continue;
+                }
+                seen[neighbor] = generation;
+                moves[neighbor] = moves[current] + 1;
+                firstStep[neighbor] = current == source ? neighbor : firstStep[current];
+                cameFrom[neighbor] = current;
+                queue[tail++] = neighbor;
+            }
+        }
+        complete = head == tail;
+        Metrics.count(Metrics.NODES_EXPANDED, head);
+    }
+
+    /**
+     * Determines if the search reached everything it could before the turn
+     * ran out of time.
+     *
+     * @return true if spaces reported as unreachable really are
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Determines if these results were computed for the given search.
+     *
+     * @param from where the search starts
+     * @param stepDistance how far a single move can go
+     * @param turn the current turn
+     * @return true if the results can be reused
+     */
+    public boolean isFor(Point from, int stepDistance, int turn) {
+        return turnNumber == turn && this.stepDistance == stepDistance && source == from.index();
+    }
+
+    /**
+     * Gets the number of moves needed to reach a point.
+     *
+     * @param target the point to reach
+     * @return the number of moves, or UNREACHABLE
+     */
+    public int movesTo(Point target) {
+        if (target == null || !target.exists()) {
+            return UNREACHABLE;
+        }
+        int cell = target.index();
+        return seen[cell] == generation ? moves[cell] : UNREACHABLE;
+    }
+
+    /**
+     * Gets the number of moves needed to stand next to a space, as a child
+     * must to pick up or plant something there.
+     *
+     * @param cell the space to get next to
+     * @return the number of moves, or UNREACHABLE
+     */
+    public int movesNextTo(int cell) {
+        Stencil adjacent = Stencil.of(1.5);
+        int fewest = UNREACHABLE;
+        for (int k = 0; k < adjacent.size(); k++) {
+            int neighbor = adjacent.neighbor(Point.x(cell), Point.y(cell), k);
+            if (neighbor >= 0 && seen[neighbor] == generation && moves[neighbor] < fewest) {
+                fewest = moves[neighbor];
+            }
+        }
+        return fewest;
+    }
+
+    /**
+     * Determines if the route found to a point is still clear, for when
+     * spaces have been reserved since the search ran. Reservations only ever
+     * close routes, so points that could not be reached still cannot be.
+     *
+     * @param target the point to reach
+     * @return false if something now stands in the way of the route
+     */
+    public boolean isRouteOpen(Point target) {
+        if (movesTo(target) == UNREACHABLE) {
+            return true;
+        }
+        int cell = target.index();
+        while (cell != source) {
+            int previous = cameFrom[cell];
+            if (!Route.openPath(Point.x(previous), Point.y(previous), Point.x(cell), Point.y(cell))) {
+                return false;
+            }
+            cell = previous;
+        }
+        return true;
+    }
+
+    /**
+     * Gets a whole shortest route to a point.
+     *
+     * @param target the point to reach
+     * @return the cell index of every stop along the route, starting where the
+     * search started and ending with the target, or null if it cannot be
+     * reached
+     */
+    public int[] routeTo(Point target) {
+        int count = movesTo(target);
+        if (count == UNREACHABLE) {
+            return null;
+        }
+        int[] route = new int[count + 1];
+        for (int cell = target.index(); count >= 0; cell = cameFrom[cell]) {
+            route[count--] = cell;
+        }
+        return route;
+    }
+
+    /**
+     * Gets the first move of a shortest route to a point.
+     *
+     * @param target the point to reach
+     * @return the point to move to, or null if the target is where the search
+     * started or cannot be reached
+     */
+    public Point firstStepToward(Point target) {
+        int count = movesTo(target);
+        if (count == UNREACHABLE || count == 0) {
+            return null;
+        }
+        int step = firstStep[target.index()];
+        return Point.of(step);
+    }
+}
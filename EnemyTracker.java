@@ -0,0 +1,113 @@
+/**
+ * Keeps track of where enemy children may be once they drop out of sight.
+ *
+ * Each enemy has a board of the spaces it could be on. While it can be seen
+ * that is just its position. Every turn it is not seen, the board grows by
+ * the furthest a child can move in a turn, leaving out spaces nothing can
+ * stand on and spaces our children can see, since it would be seen there.
+ * An enemy stops being tracked after a given number of turns out of sight,
+ * or if there is nowhere left it could be.
+ */
+public class EnemyTracker {
+
+    // the furthest any child moves in a turn
+    private static final int MAX_STEP = 3;
+
+    private static final int UNTRACKED = -1;
+
+    // turns an enemy is still tracked after it was last seen
+    private final int maxTurnsUnseen;
+
+    private final int[] lastSeenCell;
+    private final int[] lastSeenTurn;
+    private final BitBoard[] possibleCells;
+
+    // scratch space for growing the boards
+    private final BitBoard grown = new BitBoard();
+
+    /**
+     * @param enemies how many enemies to track
+     * @param maxTurnsUnseen how many turns an enemy is still tracked after it
+     * was last seen
+     */
+    public EnemyTracker(int enemies, int maxTurnsUnseen) {
+        this.maxTurnsUnseen = maxTurnsUnseen;
+        lastSeenCell = new int[enemies];
+        lastSeenTurn = new int[enemies];
+        possibleCells = new BitBoard[enemies];
+        for (int i = 0; i < enemies; i++) {
+            lastSeenCell[i] = UNTRACKED;
+            possibleCells[i] = new BitBoard();
+        }
+    }
+
+    /**
+     * Takes in where the enemies are seen on a new turn.
+     *
+     * @param enemies the enemy children, in a fixed order
+     * @param turn the new turn number
+     * @param inSight the spaces our children can see
+     * @param solid the spaces nothing can stand on
+     */
+    public void update(Child[] enemies, int turn, BitBoard inSight, BitBoard solid) {
+        Stencil step = Stencil.forStep(MAX_STEP);
+        for (int i = 0; i < enemies.length; i++) {
+            BitBoard possible = possibleCells[i];
+            Point position = enemies[i].getPosition();
+            if (position.exists()) {
+                lastSeenCell[i] = position.index();
+                lastSeenTurn[i] = turn;
+                possible.clear();
+                possible.set(position.index());
+                continue;
+            }
+            if (lastSeenCell[i] == UNTRACKED) {
+                continue;
+            }
+            if (turn - lastSeenTurn[i] > maxTurnsUnseen) {
+                forget(i);
+                continue;
+            }
+
+            grown.copyFrom(possible);
+            for (int cell = possible.nextSetBit(0); cell >= 0; cell = possible.nextSetBit(cell + 1)) {
+                for (int k = 0; k < step.size(); k++) {
+                    int neighbor = step.neighbor(Point.x(cell), Point.y(cell), k);
+                    if (neighbor >= 0 && !solid.get(neighbor)) {
+                        grown.set(neighbor);
+                    }
+                }
+            }
+            grown.andNot(inSight);
+            if (grown.isEmpty()) {
+                forget(i);
+            } else {
+                possible.copyFrom(grown);
+            }
+        }
+    }
+
+    private void forget(int enemy) {
+        lastSeenCell[enemy] = UNTRACKED;
+        possibleCells[enemy].clear();
+    }
+
+    /**
+     * @param enemy the enemy, in the order given to update
+     * @return true if the enemy is in sight or was seen recently
+     */
+    public boolean isTracked(int enemy) {
+        return lastSeenCell[enemy] != UNTRACKED;
+    }
+
+    /**
+     * Gets the spaces an enemy could be on. The board is owned by the tracker
+     * and must not be changed.
+     *
+     * @param enemy the enemy, in the order given to update
+     * @return the possible spaces, empty if the enemy is not tracked
+     */
+    public BitBoard possibleCells(int enemy) {
+        return possibleCells[enemy];
+    }
+}
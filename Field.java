@@ -1,4 +1,5 @@
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.logging.Logger;
@@ -9,85 +10,476 @@ import java.util.logging.Logger;
  */
 public class Field {
 
-    private int[][] field;
-    private int[][] storedField;
+    // a space can be seen from anything closer than 8 spaces away
+    private static final double SIGHT_RADIUS = Math.sqrt(63);
+
+    // the spaces that can be seen from each space, indexed by cell
+    private static final BitBoard[] SIGHT = new BitBoard[Constants.NUM_CELLS];
+
+    static {
+        Stencil sight = Stencil.of(SIGHT_RADIUS);
+        for (int cell = 0; cell < Constants.NUM_CELLS; cell++) {
+            SIGHT[cell] = new BitBoard();
+            SIGHT[cell].set(cell);
+            for (int k = 0; k < sight.size(); k++) {
+                int neighbor = sight.neighbor(Point.x(cell), Point.y(cell), k);
+                if (neighbor >= 0) {
+                    SIGHT[cell].set(neighbor);
+                }
+            }
+        }
+    }
+
+    // turns an enemy that dropped out of sight is still counted as a threat
+    // wherever it could have got to
+    private static final int THREAT_MEMORY_TURNS = 2;
+
+    private final int[][] field;
+    // the field exactly as the game engine last sent it
+    private final int[][] input;
     private final Child[] children;
+    // the children on the other team, filled in once they have all been made
+    private Set<Child> enemies;
+    private Child[] enemyChildren;
+    private final EnemyTracker enemyTracker;
     private int turnNumber;
 
+    // distance fields for each child, indexed by child and then step distance
+    private final DistanceField[][] distanceFields;
+
+    // spaces holding each kind of non-negative field encoding, indexed by encoding
+    private final BitBoard[] typeCells;
+    // spaces holding a pile of paintballs
+    private final BitBoard ammoCells;
+    // spaces whose contents keep a child from standing there
+    private final BitBoard solidCells;
+    // spaces a child is standing on
+    private final BitBoard childCells;
+    // items and spaces children on our team have already claimed this turn
+    private final ClaimRegistry claims;
+    // moves children on our team plan to make over the next few turns
+    private final ReservationTable reservations;
+    // spaces an enemy child or flag can see this turn
+    private final BitBoard threatCells;
+    // spaces our children can see this turn
+    private final BitBoard sightCells;
+
+    // how tall whatever is on each space is, indexed by cell
+    private final int[] heights;
+    private int heightVersion;
+
+    // spaces whose contents changed on the last update
+    private final BitBoard changedCells;
+
+    // spaces to work out again on the next update even if the engine sends
+    // the same for them and their mirror images, since what they remember
+    // changed
+    private final BitBoard unsettledCells;
+
+    // scratch space for update
+    private final BitBoard dirtyCells;
+    private final BitBoard staleCells;
+    private final int[] resolved;
+
     public Field(int[][] field, Child[] children) {
         this.field = copyField(field);
-        storedField = copyField(field);
+        input = copyField(field);
         this.children = children;
         turnNumber = -1;
+        distanceFields = new DistanceField[children.length][4];
+
+        typeCells = new BitBoard[Constants.UNKNOWN + 1];
+        for (int type = 0; type < typeCells.length; type++) {
+            typeCells[type] = new BitBoard();
+        }
+        ammoCells = new BitBoard();
+        solidCells = new BitBoard();
+        childCells = new BitBoard();
+        claims = new ClaimRegistry();
+        reservations = new ReservationTable();
+        threatCells = new BitBoard();
+        sightCells = new BitBoard();
+        enemyTracker = new EnemyTracker(Constants.NUM_CHILDREN_PER_TEAM, THREAT_MEMORY_TURNS);
+        heights = new int[Constants.NUM_CELLS];
+        heightVersion = 0;
+        changedCells = new BitBoard();
+        unsettledCells = new BitBoard();
+        dirtyCells = new BitBoard();
+        staleCells = new BitBoard();
+        resolved = new int[Constants.NUM_CELLS];
+        for (int cell = 0; cell < Constants.NUM_CELLS; cell++) {
+            addToIndex(cell, type(cell));
+            heights[cell] = typeHeight(type(cell));
+            // the first update works out every space, as the full one did
+            unsettledCells.set(cell);
+        }
     }
 
+    /**
+     * Takes in the field the game engine sent for a new turn.
+     *
+     * Spaces we cannot see are filled in from what we remember and from the
+     * mirror image of the field. A space comes out of that from its engine
+     * value and what it remembered, and the same for its mirror image. So
+     * only spaces where one of those changed are looked at again: the engine
+     * value changed since the last turn, or the space's contents changed on
+     * the last update, for the space or its mirror image. Every other space
+     * comes out the same as the full update would give. Spaces whose
+     * contents change are recorded in changedCells().
+     *
+     * @param newField the field as sent by the game engine
+     */
     public void update(int[][] newField) {
 //        log();
-        field = copyField(newField);
+        dirtyCells.clear();
+        for (int cell = unsettledCells.nextSetBit(0); cell >= 0; cell = unsettledCells.nextSetBit(cell + 1)) {
+            dirtyCells.set(cell);
+            dirtyCells.set(mirror(cell));
+        }
         for (int i = 0; i < Constants.FIELD_DIMENSION; i++) {
             for (int j = 0; j < Constants.FIELD_DIMENSION; j++) {
-                if (field[i][j] == Constants.UNKNOWN && isWorthTracking(storedField[i][j])) {
-                    field[i][j] = storedField[i][j];
+                if (newField[i][j] != input[i][j]) {
+                    int cell = Point.index(i, j);
+                    dirtyCells.set(cell);
+                    dirtyCells.set(mirror(cell));
                 }
             }
         }
-        for (int i = 0; i < Constants.FIELD_DIMENSION; i++) {
-            for (int j = 0; j < Constants.FIELD_DIMENSION; j++) {
-                if (field[i][j] == Constants.UNKNOWN && isWorthReflecting(field[30 - i][30 - j])) {
-                    if (storedField[i][j] == Constants.UNKNOWN) {
-                        field[i][j] = field[30 - i][30 - j];
-                    } else if (storedField[i][j] == Constants.EMPTY){
-                        field[i][j] = Constants.EMPTY;
-                    }
-                }
+
+        // resolve everything before writing, since a space and its mirror
+        // both read what the other remembered
+        int dirtyCount = 0;
+        for (int cell = dirtyCells.nextSetBit(0); cell >= 0; cell = dirtyCells.nextSetBit(cell + 1)) {
+            resolved[dirtyCount++] = resolve(cell, newField);
+        }
+
+        changedCells.clear();
+        int k = 0;
+        for (int cell = dirtyCells.nextSetBit(0); cell >= 0; cell = dirtyCells.nextSetBit(cell + 1)) {
+            int x = Point.x(cell);
+            int y = Point.y(cell);
+            input[x][y] = newField[x][y];
+            int type = resolved[k++];
+            if (field[x][y] != type) {
+                removeFromIndex(cell, field[x][y]);
+                field[x][y] = type;
+                addToIndex(cell, type);
+                changedCells.set(cell);
             }
         }
-        storedField = copyField(field);
+        unsettledCells.copyFrom(changedCells);
+
+        // children moved and last turn's reservations are gone, so every
+        // space they covered needs its height worked out again
+        staleCells.copyFrom(childCells);
+        staleCells.or(claims.reservedCells());
+        staleCells.or(changedCells);
+        childCells.clear();
+        claims.clear();
+        reservations.clear();
+        for (Child child : children) {
+            if (child.getPosition().exists()) {
+                childCells.set(child.getPosition().index());
+            }
+        }
+        staleCells.or(childCells);
+        for (int cell = staleCells.nextSetBit(0); cell >= 0; cell = staleCells.nextSetBit(cell + 1)) {
+            setHeight(cell, restingHeight(cell));
+        }
+
         turnNumber++;
+
+        if (enemies == null) {
+            enemyChildren = Arrays.copyOfRange(children, Constants.NUM_CHILDREN_PER_TEAM, children.length);
+            enemies = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(enemyChildren)));
+        }
+        sightCells.clear();
+        for (int i = 0; i < Constants.NUM_CHILDREN_PER_TEAM; i++) {
+            if (children[i].getPosition().exists()) {
+                markSight(sightCells, children[i].getPosition().index());
+            }
+        }
+        enemyTracker.update(enemyChildren, turnNumber, sightCells, solidCells);
+        updateThreats();
 //        log();
     }
-    
+
+    // marks every space within sight of an enemy flag, an enemy child or
+    // anywhere an enemy that just dropped out of sight could be
+    private void updateThreats() {
+        threatCells.clear();
+        BitBoard flags = typeCells[Constants.BLUE_FLAG];
+        for (int cell = flags.nextSetBit(0); cell >= 0; cell = flags.nextSetBit(cell + 1)) {
+            markSight(threatCells, cell);
+        }
+        for (int i = 0; i < enemyChildren.length; i++) {
+            if (enemyChildren[i].getPosition().exists()) {
+                markSight(threatCells, enemyChildren[i].getPosition().index());
+            } else if (enemyTracker.isTracked(i)) {
+                BitBoard possible = enemyTracker.possibleCells(i);
+                for (int cell = possible.nextSetBit(0); cell >= 0; cell = possible.nextSetBit(cell + 1)) {
+                    markSight(threatCells, cell);
+                }
+            }
+        }
+    }
+
+    private static void markSight(BitBoard board, int cell) {
+        board.or(SIGHT[cell]);
+    }
+
+    private int resolve(int cell, int[][] newField) {
+        int type = remembered(cell, newField);
+        if (type == Constants.UNKNOWN) {
+            int mirrorType = remembered(mirror(cell), newField);
+            if (isWorthReflecting(mirrorType)) {
+                int stored = type(cell);
+                if (stored == Constants.UNKNOWN) {
+                    type = mirrorType;
+                } else if (stored == Constants.EMPTY) {
+                    type = Constants.EMPTY;
+                }
+            }
+        }
+        return type;
+    }
+
+    private int remembered(int cell, int[][] newField) {
+        int type = newField[Point.x(cell)][Point.y(cell)];
+        if (type == Constants.UNKNOWN && isWorthTracking(type(cell))) {
+            return type(cell);
+        }
+        return type;
+    }
+
+    private static int mirror(int cell) {
+        return Constants.NUM_CELLS - 1 - cell;
+    }
+
+    private void addToIndex(int cell, int type) {
+        if (type < 0) {
+            ammoCells.set(cell);
+        } else {
+            typeCells[type].set(cell);
+        }
+        solidCells.set(cell, type != Constants.EMPTY && type != Constants.UNKNOWN);
+    }
+
+    private void removeFromIndex(int cell, int type) {
+        if (type < 0) {
+            ammoCells.clear(cell);
+        } else {
+            typeCells[type].clear(cell);
+        }
+    }
+
+    /**
+     * Gets the spaces whose contents changed on the last update. The board is
+     * owned by the field and must not be changed.
+     *
+     * @return the changed spaces
+     */
+    public BitBoard changedCells() {
+        return changedCells;
+    }
+
     public boolean isEmptyAt(Point point) {
-        int x = point.getX();
-        int y = point.getY();
         if (!point.exists()) {
             return false;
         }
-        if (type(point) != Constants.EMPTY && type(point) != Constants.UNKNOWN) {
-            return false;
+        return isEmptyAt(point.index());
+    }
+
+    public boolean isEmptyAt(int cell) {
+        return !solidCells.get(cell) && !childCells.get(cell) && !claims.reservedCells().get(cell);
+    }
+
+    /**
+     * Marks spaces as taken by a move a child on our team has chosen, so
+     * children deciding after it route around them and shots treat the child
+     * as being in the way.
+     *
+     * @param child the child that is moving
+     * @param points the spaces the move passes through
+     */
+    public void reserve(Child child, Iterable<Point> points) {
+        for (Point point : points) {
+            if (point.exists() && !childCells.get(point.index()) && claims.reserve(child, point.index())) {
+                setHeight(point.index(), childHeight(child));
+            }
         }
-        for (Child child : children) {
-            Point childPosition = child.getPosition();
-            if (childPosition.equals(point) || child.getBlockedSpaces().contains(point)) {
-                return false;
+    }
+
+    /**
+     * Gets the spaces holding a kind of item or terrain. The board is owned
+     * by the field and must not be changed.
+     *
+     * @param type the field encoding, from Constants
+     * @return the spaces with that encoding
+     */
+    public BitBoard cellsOfType(int type) {
+        return typeCells[type];
+    }
+
+    /**
+     * Gets the spaces holding a pile of paintballs. The board is owned by the
+     * field and must not be changed.
+     *
+     * @return the spaces with paintballs
+     */
+    public BitBoard ammoCells() {
+        return ammoCells;
+    }
+
+    /**
+     * Finds the space, out of some, that a child can get next to in the
+     * fewest moves. Ties, and spaces no route reaches, go to the closest in a
+     * straight line.
+     *
+     * @param child the child that is moving
+     * @param cells the spaces to choose from
+     * @return the nearest space, or null if there are none
+     */
+    public Point nearestByPath(Child child, BitBoard cells) {
+        DistanceField distances = distancesFrom(child);
+        Point from = child.getPosition();
+        Point nearest = null;
+        int fewestMoves = DistanceField.UNREACHABLE;
+        double shortestDistance = Double.MAX_VALUE;
+        for (int cell = cells.nextSetBit(0); cell >= 0; cell = cells.nextSetBit(cell + 1)) {
+            Point point = Point.of(cell);
+            int moves = distances.movesNextTo(cell);
+            double distance = from.distance(point);
+            if (moves < fewestMoves || moves == fewestMoves && distance < shortestDistance) {
+                nearest = point;
+                fewestMoves = moves;
+                shortestDistance = distance;
             }
         }
-        return true;
+        return nearest;
+    }
+
+    public boolean hasUnknownCells() {
+        return !typeCells[Constants.UNKNOWN].isEmpty();
     }
     
+    /**
+     * Gets the moves needed for a child to reach every space this turn. The
+     * search runs the first time it is asked for on a turn and is shared by
+     * every query after that.
+     *
+     * @param child the child that is moving
+     * @return the distance field from the child's position
+     */
+    public DistanceField distancesFrom(Child child) {
+        DistanceField distances = distanceFieldFor(child);
+        if (!distances.isFor(child.getPosition(), child.stepDistance(), turnNumber)) {
+            distances.compute(child.getPosition(), child.stepDistance(), turnNumber);
+        }
+        return distances;
+    }
+
+    /**
+     * Runs a child's distance field search again, for when teammates have
+     * reserved spaces since it last ran.
+     *
+     * @param child the child that is moving
+     * @return the distance field from the child's position
+     */
+    public DistanceField refreshDistancesFrom(Child child) {
+        DistanceField distances = distanceFieldFor(child);
+        distances.compute(child.getPosition(), child.stepDistance(), turnNumber);
+        return distances;
+    }
+
+    private DistanceField distanceFieldFor(Child child) {
+        int index = 0;
+        while (children[index] != child) {
+            index++;
+        }
+        int stepDistance = child.stepDistance();
+        DistanceField distances = distanceFields[index][stepDistance];
+        if (distances == null) {
+            distances = new DistanceField();
+            distanceFields[index][stepDistance] = distances;
+        }
+        return distances;
+    }
+
     public Set<Child> enemies() {
-        return new HashSet<>(Arrays.asList(Arrays.copyOfRange(children, 4, children.length)));
+        return enemies;
     }
     
-    public boolean isChildPickingUp(Point target) {
-        for (Child child : children) {
-            if (child.getCurrentAction() != null && child.getCurrentAction().toString().equals(Action.makePickupItemAction(target).toString())) {
-                return true;
-            }
-        }
-        return false;
+    /**
+     * Determines if a teammate has claimed an item.
+     *
+     * @param child the child asking
+     * @param target where the item is
+     * @return true if a child other than the one asking is going for it
+     */
+    public boolean isPickupClaimedByOther(Child child, Point target) {
+        Child claimant = claims.pickupClaimant(target.index());
+        return claimant != null && claimant != child;
+    }
+
+    /**
+     * Gets what children on our team have claimed this turn.
+     *
+     * @return the claim registry
+     */
+    public ClaimRegistry claims() {
+        return claims;
+    }
+
+    /**
+     * Gets the moves children on our team that have already committed plan
+     * to make over the next few turns.
+     *
+     * @return the reservation table
+     */
+    public ReservationTable reservations() {
+        return reservations;
     }
 
     public int type(Point point) {
         return field[point.getX()][point.getY()];
     }
+
+    public int type(int cell) {
+        return field[Point.x(cell)][Point.y(cell)];
+    }
+
     public int height(Point point) {
-        for (Child child : children) {
-            if (child.getPosition().equals(point) || child.getBlockedSpaces().contains(point)) {
-                return child.isStanding() ? 9 : 3;
-            }
-        }
-        switch(type(point)) {
+        return height(point.index());
+    }
+
+    public int height(int cell) {
+        return heights[cell];
+    }
+
+    /**
+     * Gets the height of whatever is on a space, leaving out children and
+     * the moves reserved this turn.
+     *
+     * @param cell the space
+     * @return the height of the terrain or item there
+     */
+    public int terrainHeight(int cell) {
+        return typeHeight(type(cell));
+    }
+
+    /**
+     * Gets a number that changes whenever the height of any space changes,
+     * so anything computed from heights can tell when it is out of date.
+     *
+     * @return the current height version
+     */
+    public int heightVersion() {
+        return heightVersion;
+    }
+
+    private static int typeHeight(int type) {
+        switch(type) {
             case Constants.TREE:
                 return 20;
             case Constants.LOW_WALL:
@@ -102,6 +494,30 @@ public class Field {
                 return 0;
         }
     }
+
+    private static int childHeight(Child child) {
+        return child.isStanding() ? 9 : 3;
+    }
+
+    // the height of a space before any moves this turn are reserved
+    private int restingHeight(int cell) {
+        if (childCells.get(cell)) {
+            for (Child child : children) {
+                if (child.getPosition().exists() && child.getPosition().index() == cell) {
+                    return childHeight(child);
+                }
+            }
+        }
+        return typeHeight(type(cell));
+    }
+
+    private void setHeight(int cell, int height) {
+        if (heights[cell] != height) {
+            heights[cell] = height;
+            heightVersion++;
+        }
+    }
+
     public int turnNumber() {
         return turnNumber;
     }
@@ -125,21 +541,26 @@ public class Field {
                 || type == Constants.TREE
                 || type < 0;
     }
+    /**
+     * Determines if an enemy child or flag can see a space this turn.
+     *
+     * @param point the space
+     * @return true if the space is closer than 8 to an enemy or enemy flag,
+     * counting enemies that were seen in the last few turns wherever they
+     * could have got to since
+     */
     public boolean canEnemySee(Point point) {
-        for (int i = 0; i < Constants.FIELD_DIMENSION; i++) {
-            for (int j = 0; j < Constants.FIELD_DIMENSION; j++) {
-                Point blueFlag = new Point(i, j);
-                if (point.distance(blueFlag) < 8 && type(blueFlag) == Constants.BLUE_FLAG) {
-                    return true;
-                }
-            }
-        }
-        for (Child enemy : enemies()) {
-            if (!enemy.getPosition().equals(new Point()) && point.distance(enemy.getPosition()) < 8) {
-                return true;
-            }
-        }
-        return false;
+        return point.exists() && threatCells.get(point.index());
+    }
+
+    /**
+     * Gets the spaces an enemy child or flag can see this turn. The board is
+     * owned by the field and must not be changed.
+     *
+     * @return the spaces in sight of the enemy
+     */
+    public BitBoard threatCells() {
+        return threatCells;
     }
 //    public void log() {
 //        String fieldOutput = "\n";
@@ -0,0 +1,160 @@
+import java.io.PrintWriter;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts and times the work done on the player's hot paths.
+ *
+ * Recording does nothing until enable() is called, which is only done
+ * outside tournament mode. Once enabled, recording only updates preallocated
+ * arrays, so it is safe from any thread and never allocates. Times are kept
+ * in histograms with four buckets for every power of two, good to within
+ * about 20%.
+ */
+public final class Metrics {
+
+    // histograms, in nanoseconds
+    public static final int PARSE = 0;
+    public static final int UPDATE = 1;
+    // one child's whole decision: ranking, pursuing and committing
+    public static final int CHOOSE = 2;
+    public static final int TURN = 3;
+
+    // counters; nodes are counted for both A* and distance field searches
+    public static final int NODES_EXPANDED = 0;
+    public static final int SHOT_CHECKS = 1;
+    public static final int PATH_FAILURES = 2;
+    public static final int PLAYOUTS = 3;
+
+    private static final String[] HISTOGRAM_NAMES = {"parse", "field update", "child choose", "whole turn"};
+    private static final String[] COUNTER_NAMES = {"nodes expanded", "shot checks", "path failures", "combat playouts"};
+
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = 64 * SUB_BUCKETS;
+
+    private static final AtomicLongArray histograms = new AtomicLongArray(HISTOGRAM_NAMES.length * BUCKETS);
+    private static final AtomicLongArray totals = new AtomicLongArray(HISTOGRAM_NAMES.length);
+    private static final AtomicLongArray counters = new AtomicLongArray(COUNTER_NAMES.length);
+
+    // set once, before any decision threads start
+    private static boolean enabled = false;
+
+    public static void enable() {
+        enabled = true;
+    }
+
+    /**
+     * Starts timing something.
+     *
+     * @return the time to pass to record(), or 0 when disabled
+     */
+    public static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records the time taken since start() was called.
+     *
+     * @param histogram which histogram to record in
+     * @param start what start() returned
+     */
+    public static void record(int histogram, long start) {
+        if (enabled) {
+            recordNanos(histogram, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * @param start what start() returned
+     * @return the time taken since start() was called, or 0 when disabled
+     */
+    public static long elapsed(long start) {
+        return enabled ? System.nanoTime() - start : 0;
+    }
+
+    /**
+     * Records a time added up from several parts timed with elapsed().
+     *
+     * @param histogram which histogram to record in
+     * @param nanos the time taken, in nanoseconds
+     */
+    public static void recordNanos(int histogram, long nanos) {
+        if (enabled) {
+            histograms.incrementAndGet(histogram * BUCKETS + bucket(nanos));
+            totals.addAndGet(histogram, nanos);
+        }
+    }
+
+    /**
+     * Adds to a counter.
+     *
+     * @param counter which counter to add to
+     * @param amount how much to add
+     */
+    public static void count(int counter, long amount) {
+        if (enabled) {
+            counters.addAndGet(counter, amount);
+        }
+    }
+
+    /**
+     * Writes everything recorded so far.
+     *
+     * @param log where to write
+     */
+    public static void dump(PrintWriter log) {
+        if (!enabled) {
+            return;
+        }
+        log.println("metric                      count    mean us     p50 us     p90 us     p99 us     max us");
+        for (int h = 0; h < HISTOGRAM_NAMES.length; h++) {
+            long count = 0;
+            for (int b = 0; b < BUCKETS; b++) {
+                count += histograms.get(h * BUCKETS + b);
+            }
+            if (count == 0) {
+                continue;
+            }
+            log.format("%-20s %12d %10.1f %10.1f %10.1f %10.1f %10.1f%n", HISTOGRAM_NAMES[h], count,
+                    totals.get(h) / 1e3 / count, quantile(h, count, 0.5), quantile(h, count, 0.9),
+                    quantile(h, count, 0.99), quantile(h, count, 1));
+        }
+        for (int c = 0; c < COUNTER_NAMES.length; c++) {
+            log.format("%-20s %12d%n", COUNTER_NAMES[c], counters.get(c));
+        }
+    }
+
+    // the upper bound, in microseconds, of the bucket holding a quantile
+    private static double quantile(int histogram, long count, double quantile) {
+        long wanted = Math.max(1, (long) Math.ceil(quantile * count));
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += histograms.get(histogram * BUCKETS + b);
+            if (seen >= wanted) {
+                return upperBound(b) / 1e3;
+            }
+        }
+        return upperBound(BUCKETS - 1) / 1e3;
+    }
+
+    private static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) Math.max(0, value);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = bucket % SUB_BUCKETS;
+        return ((SUB_BUCKETS + subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+
+    private Metrics() {
+    }
+}
@@ -1,7 +1,9 @@
+import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.PrintWriter;
-import java.util.Scanner;
 import java.util.logging.FileHandler;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -22,6 +24,9 @@ public class PaintballPlayer {
     // a very simple log (i.e. file) interface.  cannot be used in tournament mode.
     private static PrintWriter sLog;
 
+    // records every turn so that the game can be replayed.  cannot be used in tournament mode.
+    private static TurnRecorder sRecorder;
+
     // holds information about all the children on the field
     private final Child[] fChildren;
 
@@ -33,18 +38,13 @@ public class PaintballPlayer {
 
     private final Field fieldWithChildren;
 
-    private static final int[] sFieldMapping = {
-        Constants.ADAPTER, Constants.BLUE_FLAG, Constants.EMPTY, Constants.EMPTY, Constants.EMPTY,
-        Constants.RAPID_FIRE_LAUNCHER, Constants.EMPTY, Constants.EMPTY, Constants.EMPTY, Constants.EMPTY,
-        Constants.EMPTY, Constants.BASIC_LAUNCHER, Constants.EMPTY, Constants.EMPTY, Constants.EMPTY,
-        Constants.EMPTY, Constants.EMPTY, Constants.RED_FLAG, Constants.SHIELD, Constants.TREE,
-        Constants.EMPTY, Constants.LOW_WALL, Constants.HIGH_WALL, Constants.EMPTY, Constants.EMPTY, Constants.EMPTY
-    };
+    // decides the actions of our children each turn
+    private final DecisionScheduler scheduler;
 
     /**
      * Construct a basic player object.
      */
-    private PaintballPlayer() {
+    PaintballPlayer() {
         fChildren = new Child[Constants.NUM_CHILDREN_PER_TEAM * 2];
 
         fScores = new int[2];
@@ -58,118 +58,96 @@ public class PaintballPlayer {
         for (int i = 1; i < fChildren.length; i++) {
             fChildren[ i] = new Fighter(i < Constants.NUM_CHILDREN_PER_TEAM ? Constants.RED : Constants.BLUE, fieldWithChildren);
         }
+
+        scheduler = new DecisionScheduler(fChildren, fieldWithChildren);
+    }
+
+    /**
+     * Makes the player's random choices depend only on the turn, so that a
+     * recorded game can be replayed with the same choices.
+     *
+     * @param reproducible true to reseed the random choices every turn
+     */
+    void setReproducible(boolean reproducible) {
+        scheduler.setReproducible(reproducible);
     }
 
     /**
      * The main player run loop.
      */
-    public void run() {
-        // Scanner to parse input from the game engine.
-        Scanner in = new Scanner(System.in);
+    public void run() throws IOException {
+        run(System.in, System.out);
+    }
+
+    /**
+     * Runs the player against turns from any source, such as recorded games.
+     *
+     * @param input where the game states are read from
+     * @param output where the actions are written to
+     */
+    void run(InputStream input, OutputStream output) throws IOException {
+        // Reader to parse input from the game engine.
+        TurnReader in = new TurnReader(input);
+
+        // Writer to send actions to the game engine.
+        ActionWriter out = new ActionWriter(output);
 
         // Keep reading states until the game ends.
-        int turnNumber = in.nextInt();
+        int turnNumber = in.readInt();
 
         // the game engine sends a -1 for a turn number when the game is over
         while (turnNumber >= 0) {
+            long turnStart = Metrics.start();
 //            if (turnNumber % 5 == 0) {
 //                fieldWithChildren.log();
 //            }
             // Read current game score.
-            fScores[ Constants.RED] = in.nextInt();
-            fScores[ Constants.BLUE] = in.nextInt();
+            fScores[ Constants.RED] = in.readInt();
+            fScores[ Constants.BLUE] = in.readInt();
 
             // Read the current field configuration and store in the field contents array
             for (int i = 0; i < Constants.FIELD_DIMENSION; i++) {
                 for (int j = 0; j < Constants.FIELD_DIMENSION; j++) {
-                    // Decode the field space encoding
-                    String fieldEncoding = in.next();
-                    fField[ i][ j] = decodeFieldSymbol(fieldEncoding);
+                    fField[ i][ j] = in.readFieldCell();
                 }
             }
 
             // Read the states of all the children.
             for (Child child : fChildren) {
-                String encoding = in.next();
-                if (encoding.equals("*")) {
-                    // if the encoding is just a *, then it means we can't see this child.
-                    // this could only happen for children on the other team
-                    child.setPosition(new Point());
-                } else {
-                    // we can see this child.
-
-                    // Record the child's location.
-                    int x = Integer.parseInt(encoding);
-                    int y = in.nextInt();
-
-                    child.setPosition(new Point(x, y));
-
-                    // read posture ( standing = S, crouching = C )
-                    encoding = in.next();
-                    child.setIsStanding(encoding.equals("S"));
-
-                    // read defending mode ( defending = D, not defending = U )
-                    encoding = in.next();
-                    child.setIsDefending(encoding.equals("D"));
-
-                    // read inventory
-                    encoding = in.next();
-                    child.setHolding(encoding.charAt(0) - 'a');
-
-                    // read the number of paintballs the child is holding
-                    child.setPaintballCount(in.nextInt());
-                }
+                in.readChild(child);
             }
+            Metrics.record(Metrics.PARSE, turnStart);
 
+            if (sRecorder != null) {
+                sRecorder.recordTurn(turnNumber, fScores, fField, fChildren);
+            }
+
+            // the clock for this turn starts once it has been read
+            TurnDeadline.start(Constants.TURN_TIME_BUDGET_MILLIS);
+
+            long updateStart = Metrics.start();
             fieldWithChildren.update(fField);
+            Metrics.record(Metrics.UPDATE, updateStart);
 
             // Decide what each child should do
-            for (int i = 0; i < Constants.NUM_CHILDREN_PER_TEAM; i++) {
-                Action action;
-                try {
-                    action = fChildren[ i].chooseAction();
-                } catch (Exception e) {
-//                    LOG.log(Level.SEVERE, "Error choosing Action!", e);
-                    action = Action.makeIdleAction();
-                }
-
-                if (!fisTournament) {
+            Action[] actions = scheduler.decide();
+            if (sRecorder != null) {
+                sRecorder.recordActions(actions);
+            }
+            for (Action action : actions) {
+                if (sLog != null) {
                     sLog.println(action.toString());
                 }
 
-                // write the child's action to the game engine
-                System.out.println(action.toString());
+                // queue the child's action for the game engine
+                out.write(action);
             }
 
-            turnNumber = in.nextInt();
-        }
-    }
+            // send all of the actions for this turn at once
+            out.flush();
+            Metrics.record(Metrics.TURN, turnStart);
 
-    /**
-     * This function maps a field encoding string to an integer constant value
-     * to store in the field map.
-     *
-     * @param fieldEncoding the encoding read from the game engine
-     *
-     * @return the integer code representing the space's contents
-     */
-    private static int decodeFieldSymbol(String fieldEncoding) {
-        char code = fieldEncoding.charAt(0);
-
-        if (code == '*') {
-            return 10;
-        } else if (code == '.') {
-            // a * means that we cannot see what is at that field location
-            // a . means the space is empty
-            return 0;
-        } else if (code == 'P') {
-            // an encoding that starts with P represents a pile of paintballs
-            // we store the number of paintballs in the space as a negative value (the value is the number
-            // of paintballs) to distinguish from the other space encodings
-            return -Integer.parseInt(fieldEncoding.substring(1));
-        } else {
-            // use a simple array to map the code to an integer encoding
-            return sFieldMapping[ code - 'A'];
+            turnNumber = in.readInt();
         }
     }
 
@@ -187,10 +165,15 @@ public class PaintballPlayer {
             }
 
             if (!fisTournament) {
-                sLog = new PrintWriter(new FileWriter(String.format("sp-%d.log", (int) (Math.random() * 1000))));
+                int game = (int) (Math.random() * 1000);
+                sLog = new PrintWriter(new FileWriter(String.format("sp-%d.log", game)));
+                sRecorder = new TurnRecorder(new FileOutputStream(String.format("sp-%d.rec", game)));
+                Metrics.enable();
             }
 
             PaintballPlayer player = new PaintballPlayer();
+            // recorded games can then be replayed making the same choices
+            player.setReproducible(!fisTournament);
 
             player.run();
         } catch (IOException t) {
@@ -203,7 +186,13 @@ public class PaintballPlayer {
         }
 
         if (!fisTournament) {
+            Metrics.dump(sLog);
             sLog.close();
+            try {
+                sRecorder.close();
+            } catch (IOException e) {
+                System.err.format("Could not finish the recording %s\n", e.getMessage());
+            }
         }
 
         // explicitly exit with a success status
@@ -0,0 +1,196 @@
+import java.util.Arrays;
+
+/**
+ * A* search over the field that works on cell indices instead of points.
+ *
+ * All of the bookkeeping lives in arrays sized to the field which are
+ * allocated once and reused, so a search allocates nothing. Instead of
+ * clearing the arrays between searches every entry is stamped with the
+ * generation of the search that wrote it, and entries from older generations
+ * are treated as unset.
+ */
+public class PathFinder {
+
+    // cost from the start to each cell, valid when seen[cell] == generation
+    private final int[] gScore = new int[Constants.NUM_CELLS];
+    private final int[] cameFrom = new int[Constants.NUM_CELLS];
+    private final int[] seen = new int[Constants.NUM_CELLS];
+    private final int[] closed = new int[Constants.NUM_CELLS];
+    private int generation = 0;
+
+    // binary min-heap of open cells, each entry is (fScore << CELL_BITS) | cell
+    private int[] heap = new int[256];
+    private int heapSize;
+
+    // how many cells to expand between checks of the turn deadline
+    private static final int DEADLINE_POLL_INTERVAL = 64;
+
+    private static final int CELL_BITS = 10;
+    private static final int CELL_MASK = (1 << CELL_BITS) - 1;
+
+    /**
+     * Finds the first step of a shortest route between two points.
+     *
+     * @param start where the route starts
+     * @param goal where the route ends
+     * @param stepDistance how far a single move can go
+     * @return the first point along the route after the start, or null if
+     * there is no route. If the goal cannot be reached, or the turn runs out
+     * of time before it is, the route to the closest point the search got to
+     * is used instead.
+     */
+    public Point firstMove(Point start, Point goal, int stepDistance) {
+        int startCell = start.index();
+        if (startCell == goal.index()) {
+            return null;
+        }
+        int current = search(start, goal, stepDistance);
+        if (current == startCell) {
+            return null;
+        }
+        while (cameFrom[current] != startCell) {
+            current = cameFrom[current];
+        }
+        return Point.of(current);
+    }
+
+    /**
+     * Finds a whole shortest route between two points.
+     *
+     * @param start where the route starts
+     * @param goal where the route ends
+     * @param stepDistance how far a single move can go
+     * @return the cell index of every stop along the route, starting with the
+     * start and ending with the goal, or null if the goal cannot be reached
+     * in time
+     */
+    public int[] route(Point start, Point goal, int stepDistance) {
+        int goalCell = goal.index();
+        if (search(start, goal, stepDistance) != goalCell) {
+            return null;
+        }
+        int length = 1;
+        for (int current = goalCell; cameFrom[current] >= 0; current = cameFrom[current]) {
+            length++;
+        }
+        int[] route = new int[length];
+        for (int current = goalCell; current >= 0; current = cameFrom[current]) {
+            route[--length] = current;
+        }
+        return route;
+    }
+
+    // returns the goal if it was reached, otherwise the closest cell reached
+    private int search(Point start, Point goal, int stepDistance) {
+        nextGeneration();
+        int goalX = goal.getX();
+        int goalY = goal.getY();
+        int startCell = start.index();
+        int goalCell = goal.index();
+        Stencil stencil = Stencil.forStep(stepDistance);
+
+        heapSize = 0;
+        seen[startCell] = generation;
+        gScore[startCell] = 0;
+        cameFrom[startCell] = -1;
+        int closest = startCell;
+        int closestDistance = squaredDistance(start.getX(), start.getY(), goalX, goalY);
+        push(heuristic(start.getX(), start.getY(), goalX, goalY, stepDistance), startCell);
+        int expanded = 0;
+        while (heapSize > 0) {
+            int current = pop() & CELL_MASK;
+            if (closed[current] == generation) {
+                continue;
+            }
+            if (current == goalCell) {
+                Metrics.count(Metrics.NODES_EXPANDED, expanded);
+                return current;
+            }
+            closed[current] = generation;
+            int x = Point.x(current);
+            int y = Point.y(current);
+            int currentDistance = squaredDistance(x, y, goalX, goalY);
+            if (currentDistance < closestDistance) {
+                closest = current;
+                closestDistance = currentDistance;
+            }
+            if (++expanded % DEADLINE_POLL_INTERVAL == 0 && TurnDeadline.expired()) {
+                break;
+            }
+            int tentativeGScore = gScore[current] + 1;
+            for (int k = 0; k < stencil.size(); k++) {
+                int neighbor = stencil.neighbor(x, y, k);
+                if (neighbor < 0 || closed[neighbor] == generation
+                        || seen[neighbor] == generation && tentativeGScore >= gScore[neighbor]) {
+                    continue;
+                }
+                if (!Route.openPath(x, y, Point.x(neighbor), Point.y(neighbor))) {
+                    continue;
+                }
+                seen[neighbor] = generation;
+                gScore[neighbor] = tentativeGScore;
+                cameFrom[neighbor] = current;
+                push(tentativeGScore + heuristic(Point.x(neighbor), Point.y(neighbor), goalX, goalY, stepDistance), neighbor);
+            }
+        }
+        Metrics.count(Metrics.NODES_EXPANDED, expanded);
+        Metrics.count(Metrics.PATH_FAILURES, 1);
+        return closest;
+    }
+
+    private static int heuristic(int x, int y, int goalX, int goalY, int stepDistance) {
+        return (int) Math.ceil(Math.sqrt(squaredDistance(x, y, goalX, goalY)) / stepDistance);
+    }
+
+    private static int squaredDistance(int x, int y, int goalX, int goalY) {
+        int run = goalX - x;
+        int rise = goalY - y;
+        return run * run + rise * rise;
+    }
+
+    private void nextGeneration() {
+        if (generation == Integer.MAX_VALUE) {
+            Arrays.fill(seen, 0);
+            Arrays.fill(closed, 0);
+            generation = 0;
+        }
+        generation++;
+    }
+
+    private void push(int fScore, int cell) {
+        if (heapSize == heap.length) {
+            heap = Arrays.copyOf(heap, heap.length * 2);
+        }
+        int entry = (fScore << CELL_BITS) | cell;
+        int i = heapSize++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent] <= entry) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = entry;
+    }
+
+    private int pop() {
+        int top = heap[0];
+        int last = heap[--heapSize];
+        int i = 0;
+        int half = heapSize >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < heapSize && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (last <= heap[child]) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = last;
+        return top;
+    }
+}
@@ -0,0 +1,190 @@
+import java.util.Arrays;
+
+/**
+ * A route a child is following over several turns.
+ *
+ * Rather than searching for a route every turn, a child keeps the one it
+ * found and checks it against what changed. Terrain that changed under the
+ * route gets every remaining move checked again, and the next move is always
+ * checked since teammates and enemies move every turn. When a move is
+ * blocked, only the blocked part is searched for again and spliced into the
+ * rest of the route. A stop may be the same as the one before it, meaning
+ * the child waits there a turn.
+ */
+public class Plan {
+
+    // how many stops past a blocked move to try joining the route again at
+    private static final int MAX_REPAIR_ATTEMPTS = 3;
+
+    // every stop on the route, including the one the child started at
+    private int[] stops = new int[0];
+    // the stop the child should be standing on now
+    private int current = 0;
+    private int stepDistance = 0;
+    // every space the route's moves pass through
+    private final BitBoard cells = new BitBoard();
+
+    /**
+     * Starts following a new route.
+     *
+     * @param route the cell index of every stop, starting with where the
+     * child is standing
+     * @param stepDistance how far a single move can go
+     */
+    public void follow(int[] route, int stepDistance) {
+        stops = route;
+        current = 0;
+        this.stepDistance = stepDistance;
+        markCells();
+    }
+
+    /**
+     * Stops following the route.
+     */
+    public void clear() {
+        stops = new int[0];
+        current = 0;
+        cells.clear();
+    }
+
+    /**
+     * Determines if this plan leads from a point to a goal. The child may
+     * still be on the stop it was last sent from if its move did not happen.
+     *
+     * @param from where the child is standing
+     * @param goal where the child is going
+     * @param stepDistance how far a single move can go now
+     * @return true if the plan can be followed from here
+     */
+    public boolean isFor(Point from, Point goal, int stepDistance) {
+        if (stops.length == 0 || this.stepDistance != stepDistance || stops[stops.length - 1] != goal.index()) {
+            return false;
+        }
+        if (stops[current] == from.index()) {
+            return true;
+        }
+        if (current > 0 && stops[current - 1] == from.index()) {
+            current--;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Gets the next move of the plan, repairing the route first if anything
+     * now stands in the way.
+     *
+     * @param field the field this turn
+     * @return the point to move to, or null if the route cannot be repaired
+     */
+    public Point nextStep(Field field) {
+        if (current + 1 >= stops.length) {
+            return null;
+        }
+        int blocked = isOpen(current) ? -1 : current;
+        if (blocked < 0 && cells.intersects(field.changedCells())) {
+            for (int i = current + 1; i + 1 < stops.length && blocked < 0; i++) {
+                if (!isOpen(i)) {
+                    blocked = i;
+                }
+            }
+        }
+        if (blocked >= 0 && !repair(blocked)) {
+            clear();
+            return null;
+        }
+        current++;
+        return Point.of(stops[current]);
+    }
+
+    /**
+     * @return how many stops are left after the current one
+     */
+    public int stopsAhead() {
+        return stops.length - 1 - current;
+    }
+
+    /**
+     * @param ahead how many stops past the current one, from 0 to
+     * stopsAhead()
+     * @return the cell index of the stop
+     */
+    public int stop(int ahead) {
+        return stops[current + ahead];
+    }
+
+    /**
+     * Finds the furthest stop from here on that is on a given space.
+     *
+     * @param cell the space
+     * @return how many stops past the current one it is, or -1 if the route
+     * does not stop there again
+     */
+    public int indexAhead(int cell) {
+        for (int i = stops.length - 1; i >= current; i--) {
+            if (stops[i] == cell) {
+                return i - current;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Replaces the start of the route from the current stop on. The stop
+     * before the current one is kept, so the plan can still be followed if
+     * this turn's move does not happen.
+     *
+     * @param prefix the new stops, starting with the current one
+     * @param rejoinAhead the stop, counted from the current one, that the
+     * last of the new stops stands for; the rest of the route follows it. If
+     * negative the route ends with the new stops.
+     */
+    public void splice(int[] prefix, int rejoinAhead) {
+        int kept = current > 0 ? 1 : 0;
+        int rest = rejoinAhead < 0 ? 0 : stops.length - current - rejoinAhead - 1;
+        int[] spliced = new int[kept + prefix.length + rest];
+        System.arraycopy(stops, current - kept, spliced, 0, kept);
+        System.arraycopy(prefix, 0, spliced, kept, prefix.length);
+        if (rest > 0) {
+            System.arraycopy(stops, current + rejoinAhead + 1, spliced, kept + prefix.length, rest);
+        }
+        stops = spliced;
+        current = kept;
+        markCells();
+    }
+
+    private boolean isOpen(int stop) {
+        int from = stops[stop];
+        int to = stops[stop + 1];
+        return Route.openPath(Point.x(from), Point.y(from), Point.x(to), Point.y(to));
+    }
+
+    // replaces the route up to a little past the blocked move with a new
+    // search from where the child is standing
+    private boolean repair(int blocked) {
+        Point start = Point.of(stops[current]);
+        int last = Math.min(stops.length - 1, blocked + MAX_REPAIR_ATTEMPTS);
+        for (int rejoin = blocked + 1; rejoin <= last; rejoin++) {
+            int[] detour = Route.route(start, Point.of(stops[rejoin]), stepDistance);
+            if (detour != null) {
+                int[] repaired = Arrays.copyOf(detour, detour.length + stops.length - rejoin - 1);
+                System.arraycopy(stops, rejoin + 1, repaired, detour.length, stops.length - rejoin - 1);
+                follow(repaired, stepDistance);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void markCells() {
+        cells.clear();
+        for (int i = 0; i + 1 < stops.length; i++) {
+            int fromX = Point.x(stops[i]);
+            int fromY = Point.y(stops[i]);
+            int[] ray = Rays.ray(Point.x(stops[i + 1]) - fromX, Point.y(stops[i + 1]) - fromY);
+            for (int step : ray) {
+                cells.set(Point.index(fromX + Rays.offsetX(step), fromY + Rays.offsetY(step)));
+            }
+        }
+    }
+}
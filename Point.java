@@ -14,26 +14,60 @@ public class Point {
 
     private static Field field;
 
+    // one shared point for every space on the field, indexed by cell index
+    private static final Point[] POINTS = new Point[Constants.NUM_CELLS];
+
+    static {
+        for (int cell = 0; cell < POINTS.length; cell++) {
+            POINTS[cell] = new Point(x(cell), y(cell));
+        }
+    }
+
     /**
-     * Construct a new point.
+     * The point used for anything that is not on the field, such as a child
+     * that cannot be seen.
+     */
+    public static final Point OFF_FIELD = new Point(-1, -1);
+
+    private Point(int x, int y) {
+        fX = x;
+        fY = y;
+    }
+
+    /**
+     * Gets the point with the given coordinates. Points on the field are
+     * shared, so the same instance is returned every time and points on the
+     * field can be compared with ==.
      *
      * @param x the x coordinate
      * @param y the y coordinate
+     * @return the point
      */
-    public Point(int x, int y) {
-        fX = x;
-        fY = y;
+    public static Point of(int x, int y) {
+        if (x >= 0 && x < Constants.FIELD_DIMENSION && y >= 0 && y < Constants.FIELD_DIMENSION) {
+            return POINTS[index(x, y)];
+        }
+        if (x == -1 && y == -1) {
+            return OFF_FIELD;
+        }
+        return new Point(x, y);
     }
 
     /**
-     * Default constructor makes a point off the field.
+     * Gets the point for a cell index.
+     *
+     * @param index the cell index of a space on the field
+     * @return the shared point for the space
      */
-    public Point() {
-        this(-1, -1);
+    public static Point of(int index) {
+        return POINTS[index];
     }
 
     @Override
     public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
         if (obj instanceof Point) {
             Point other = (Point) obj;
             return fX == other.getX() && fY == other.getY();
@@ -76,6 +110,28 @@ public class Point {
         return fY;
     }
 
+    /**
+     * Gets the cell index of this point, numbering the field column by column
+     * the same way the field arrays are laid out.
+     *
+     * @return the cell index, only meaningful if the point exists
+     */
+    public int index() {
+        return index(fX, fY);
+    }
+
+    public static int index(int x, int y) {
+        return x * Constants.FIELD_DIMENSION + y;
+    }
+
+    public static int x(int index) {
+        return index / Constants.FIELD_DIMENSION;
+    }
+
+    public static int y(int index) {
+        return index % Constants.FIELD_DIMENSION;
+    }
+
     public double distance(Point other) {
         int run = other.getX() - fX;
         int rise = other.getY() - fY;
@@ -87,24 +143,16 @@ public class Point {
     }
 
     public Point add(Point other) {
-        return new Point(fX + other.getX(), fY + other.getY());
+        return of(fX + other.getX(), fY + other.getY());
     }
 
     public Set<Point> pointsWithin(double radius) {
-        Set<Point> moves = new HashSet<>(4 * (int) (radius * radius));
-        for (int i = -(int) radius; i <= radius; i++) {
-            for (int j = -(int) radius; j <= radius; j++) {
-                Point possibleMove = new Point(i, j);
-                if ((new Point(0, 0)).distance(possibleMove) <= radius) {
-                    moves.add(possibleMove);
-                }
-            }
-        }
-        Set<Point> locations = new HashSet<>(moves.size());
-        for (Point move : moves) {
-            Point location = add(move);
-            if (location.exists() && !location.equals(this)) {
-                locations.add(location);
+        Stencil stencil = Stencil.of(radius);
+        Set<Point> locations = new HashSet<>(2 * stencil.size());
+        for (int i = 0; i < stencil.size(); i++) {
+            int cell = stencil.neighbor(fX, fY, i);
+            if (cell >= 0) {
+                locations.add(of(cell));
             }
         }
         return locations;
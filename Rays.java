@@ -0,0 +1,109 @@
+/**
+ * Precomputed straight lines between spaces.
+ *
+ * A straight route only depends on the offset between its ends, so the route
+ * for every offset a paintball can be launched over is worked out once and
+ * stored as packed offsets from the start. Walking a ray is then an array walk
+ * with no rounding and no allocation.
+ */
+public final class Rays {
+
+    /**
+     * The largest offset along either axis that has a precomputed ray.
+     */
+    public static final int MAX_OFFSET = Constants.MAX_LAUNCH_DISTANCE;
+
+    private static final int SPAN = 2 * MAX_OFFSET + 1;
+
+    // bias that keeps packed offsets positive
+    private static final int BIAS = 32;
+
+    // the ray for every offset, indexed by rayIndex(dx, dy)
+    private static final int[][] RAYS = new int[SPAN * SPAN][];
+
+    // the height of a paintball at each step of a flight, indexed by the
+    // number of steps in the flight and then the step; zero or less means
+    // the paintball has landed
+    private static final double[][] FLIGHT_HEIGHTS = new double[MAX_OFFSET + 1][];
+
+    static {
+        for (int dx = -MAX_OFFSET; dx <= MAX_OFFSET; dx++) {
+            for (int dy = -MAX_OFFSET; dy <= MAX_OFFSET; dy++) {
+                int numberOfSteps = Math.max(Math.abs(dx), Math.abs(dy));
+                int[] ray = new int[numberOfSteps + 1];
+                for (int t = 0; t <= numberOfSteps; t++) {
+                    ray[t] = pack(Route.roundAwayFromZero(t * dx / ((double) numberOfSteps)),
+                            Route.roundAwayFromZero(t * dy / ((double) numberOfSteps)));
+                }
+                RAYS[rayIndex(dx, dy)] = ray;
+            }
+        }
+        for (int numberOfSteps = 0; numberOfSteps <= MAX_OFFSET; numberOfSteps++) {
+            int size = numberOfSteps + 1;
+            double[] heights = new double[size];
+            for (int i = 1; i < size; i++) {
+                if (i > 0.5 * size) {
+                    heights[i] = 18.0 * (1 - i / (double) size);
+                } else {
+                    heights[i] = 9.0;
+                }
+            }
+            FLIGHT_HEIGHTS[numberOfSteps] = heights;
+        }
+    }
+
+    /**
+     * Determines if there is a precomputed ray for an offset.
+     *
+     * @param dx the offset along x
+     * @param dy the offset along y
+     * @return true if ray(dx, dy) can be used
+     */
+    public static boolean covers(int dx, int dy) {
+        return dx >= -MAX_OFFSET && dx <= MAX_OFFSET && dy >= -MAX_OFFSET && dy <= MAX_OFFSET;
+    }
+
+    /**
+     * Gets the straight route for an offset, the same spaces as
+     * Route.straightRoute would give starting from (0, 0). The first entry is
+     * always the start. The array is shared and must not be changed.
+     *
+     * @param dx the offset along x
+     * @param dy the offset along y
+     * @return the packed offsets of each step
+     */
+    public static int[] ray(int dx, int dy) {
+        return RAYS[rayIndex(dx, dy)];
+    }
+
+    /**
+     * Gets the height of a paintball at each step of a flight with a given
+     * number of steps, matching the trajectory used by Route.hitPoint. The
+     * array is shared and must not be changed.
+     *
+     * @param numberOfSteps the length of the ray the paintball follows
+     * @return the height at each step
+     */
+    public static double[] flightHeights(int numberOfSteps) {
+        return FLIGHT_HEIGHTS[numberOfSteps];
+    }
+
+    public static int offsetX(int packed) {
+        return (packed >>> 8) - BIAS;
+    }
+
+    public static int offsetY(int packed) {
+        return (packed & 0xff) - BIAS;
+    }
+
+    private static int pack(int offsetX, int offsetY) {
+        return ((offsetX + BIAS) << 8) | (offsetY + BIAS);
+    }
+
+    private static int rayIndex(int dx, int dy) {
+        return (dx + MAX_OFFSET) * SPAN + dy + MAX_OFFSET;
+    }
+
+    private Rays() {
+    }
+}
@@ -0,0 +1,214 @@
+/**
+ * Where the children on our team plan to be over the next few turns, so they
+ * can keep out of each other's way.
+ *
+ * Children commit one after another in team order. Each one checks its plan
+ * against the spaces teammates that committed earlier will be moving
+ * through, and when they cross, searches over space and time for the
+ * quickest way around: moving elsewhere, or waiting a turn for the teammate
+ * to pass, until it can rejoin its route. Then it reserves its own next few
+ * moves for the children after it.
+ */
+public class ReservationTable {
+
+    /**
+     * How many turns ahead moves are reserved and planned around.
+     */
+    public static final int WINDOW = 5;
+
+    // the spaces teammates pass through or stand on during each turn's move,
+    // indexed by turns from now, starting with this turn's move at 1
+    private final BitBoard[] occupied = new BitBoard[WINDOW + 1];
+
+    // search state, indexed by turn and then cell
+    private final int[][] seen = new int[WINDOW + 1][Constants.NUM_CELLS];
+    private final int[][] cameFrom = new int[WINDOW + 1][Constants.NUM_CELLS];
+    private final int[] layer = new int[Constants.NUM_CELLS];
+    private final int[] nextLayer = new int[Constants.NUM_CELLS];
+    private int generation = 0;
+
+    public ReservationTable() {
+        for (int turn = 0; turn <= WINDOW; turn++) {
+            occupied[turn] = new BitBoard();
+        }
+    }
+
+    /**
+     * Forgets every reservation, ready for a new turn.
+     */
+    public void clear() {
+        for (BitBoard board : occupied) {
+            board.clear();
+        }
+    }
+
+    /**
+     * Reserves the moves of a plan that has just been advanced to this turn's
+     * move, and the space it ends on for the turns after it runs out.
+     *
+     * @param from where the child is standing now
+     * @param plan the plan, already advanced past this turn's move
+     */
+    public void reserve(Point from, Plan plan) {
+        int previous = from.index();
+        for (int turn = 1; turn <= WINDOW; turn++) {
+            int next = turn - 1 <= plan.stopsAhead() ? plan.stop(turn - 1) : previous;
+            mark(turn, previous, next);
+            previous = next;
+        }
+    }
+
+    /**
+     * Reserves a single move, followed by staying on the space moved to.
+     *
+     * @param from where the child is standing
+     * @param to where it moves this turn; the same as from to stay put
+     */
+    public void reserve(Point from, Point to) {
+        mark(1, from.index(), to.index());
+        for (int turn = 2; turn <= WINDOW; turn++) {
+            occupied[turn].set(to.index());
+        }
+    }
+
+    /**
+     * Reroutes a plan that has just been advanced to this turn's move if any
+     * of its next few moves crosses a teammate's reserved moves.
+     *
+     * @param plan the plan, already advanced past this turn's move
+     * @param stepDistance how far a single move can go
+     */
+    public void coordinate(Plan plan, int stepDistance) {
+        if (!isRouteFree(plan, 0, 1)) {
+            detour(plan, stepDistance);
+        }
+    }
+
+    // true if following the plan from one of its stops, standing there at
+    // the end of a given turn, keeps clear of teammates to the end of the
+    // window
+    private boolean isRouteFree(Plan plan, int from, int turn) {
+        int last = plan.stopsAhead();
+        int i = from;
+        for (; i < last && turn < WINDOW; i++, turn++) {
+            if (!isFree(turn + 1, plan.stop(i), plan.stop(i + 1))) {
+                return false;
+            }
+        }
+        // a child that has arrived still stands on its space afterwards
+        for (; turn < WINDOW; turn++) {
+            if (occupied[turn + 1].get(plan.stop(last))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // searches moves and waits from the plan's current stop for the way
+    // that gets back onto the route soonest, or if there is none, the way
+    // that ends up closest to the end of the route
+    private void detour(Plan plan, int stepDistance) {
+        generation++;
+        Stencil stencil = Stencil.forStep(stepDistance);
+        int start = plan.stop(0);
+        int goal = plan.stop(plan.stopsAhead());
+        seen[1][start] = generation;
+        cameFrom[1][start] = -1;
+        layer[0] = start;
+        int layerSize = 1;
+
+        // moves left to the end of the route when rejoining it, otherwise
+        // squared distance to the end, over the whole window
+        int bestCost = Integer.MAX_VALUE;
+        int bestTurn = -1;
+        int bestCell = -1;
+        int bestRejoin = -1;
+        for (int turn = 1; turn <= WINDOW && layerSize > 0; turn++) {
+            for (int i = 0; i < layerSize; i++) {
+                int cell = layer[i];
+                int rejoin = plan.indexAhead(cell);
+                if (rejoin >= 0 && (rejoin > 0 || turn > 1) && isRouteFree(plan, rejoin, turn)) {
+                    int cost = turn - 1 + plan.stopsAhead() - rejoin;
+                    if (bestRejoin < 0 || cost < bestCost) {
+                        bestCost = cost;
+                        bestTurn = turn;
+                        bestCell = cell;
+                        bestRejoin = rejoin;
+                    }
+                } else if (turn == WINDOW && bestRejoin < 0 && squaredDistance(cell, goal) < bestCost) {
+                    bestCost = squaredDistance(cell, goal);
+                    bestTurn = turn;
+                    bestCell = cell;
+                }
+            }
+            if (turn == WINDOW || TurnDeadline.expired()) {
+                break;
+            }
+
+            int nextSize = 0;
+            for (int i = 0; i < layerSize; i++) {
+                int cell = layer[i];
+                int x = Point.x(cell);
+                int y = Point.y(cell);
+                if (!occupied[turn + 1].get(cell) && seen[turn + 1][cell] != generation) {
+                    seen[turn + 1][cell] = generation;
+                    cameFrom[turn + 1][cell] = cell;
+                    nextLayer[nextSize++] = cell;
+                }
+                for (int k = 0; k < stencil.size(); k++) {
+                    int neighbor = stencil.neighbor(x, y, k);
+                    if (neighbor < 0 || seen[turn + 1][neighbor] == generation
+                            || !isFree(turn + 1, cell, neighbor)
+                            || !Route.openPath(x, y, Point.x(neighbor), Point.y(neighbor))) {
+                        continue;
+                    }
+                    seen[turn + 1][neighbor] = generation;
+                    cameFrom[turn + 1][neighbor] = cell;
+                    nextLayer[nextSize++] = neighbor;
+                }
+            }
+            System.arraycopy(nextLayer, 0, layer, 0, nextSize);
+            layerSize = nextSize;
+        }
+
+        if (bestCell < 0) {
+            return;
+        }
+        int[] detour = new int[bestTurn];
+        for (int turn = bestTurn, cell = bestCell; turn >= 1; cell = cameFrom[turn][cell], turn--) {
+            detour[turn - 1] = cell;
+        }
+        plan.splice(detour, bestRejoin);
+    }
+
+    // true if a move taken during a given turn stays clear of teammates
+    private boolean isFree(int turn, int from, int to) {
+        if (turn > WINDOW) {
+            return true;
+        }
+        int fromX = Point.x(from);
+        int fromY = Point.y(from);
+        int[] ray = Rays.ray(Point.x(to) - fromX, Point.y(to) - fromY);
+        for (int i = from == to ? 0 : 1; i < ray.length; i++) {
+            if (occupied[turn].get(Point.index(fromX + Rays.offsetX(ray[i]), fromY + Rays.offsetY(ray[i])))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void mark(int turn, int from, int to) {
+        int fromX = Point.x(from);
+        int fromY = Point.y(from);
+        int[] ray = Rays.ray(Point.x(to) - fromX, Point.y(to) - fromY);
+        for (int step : ray) {
+            occupied[turn].set(Point.index(fromX + Rays.offsetX(step), fromY + Rays.offsetY(step)));
+        }
+    }
+
+    private static int squaredDistance(int from, int to) {
+        int run = Point.x(to) - Point.x(from);
+        int rise = Point.y(to) - Point.y(from);
+        return run * run + rise * rise;
+    }
+}
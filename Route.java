@@ -1,12 +1,8 @@
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Random;
-import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -18,14 +14,43 @@ public class Route {
 
     private static Field field = null;
 
+    // children can decide on different threads, so each thread gets its
+    // own search state
+    private static final ThreadLocal<ShotSolver> SHOT_SOLVERS = new ThreadLocal<>();
+    private static final ThreadLocal<PathFinder> PATH_FINDERS = new ThreadLocal<>();
+
     public static void setField(Field gameField) {
         field = gameField;
     }
 
+    private static ShotSolver shotSolver() {
+        ShotSolver solver = SHOT_SOLVERS.get();
+        if (solver == null || !solver.isFor(field)) {
+            solver = new ShotSolver(field);
+            SHOT_SOLVERS.set(solver);
+        }
+        return solver;
+    }
+
+    private static PathFinder pathFinder() {
+        PathFinder pathFinder = PATH_FINDERS.get();
+        if (pathFinder == null) {
+            pathFinder = new PathFinder();
+            PATH_FINDERS.set(pathFinder);
+        }
+        return pathFinder;
+    }
+
     public static Point closestPointNextTo(Point origin, Point target) {
         Point closest = null;
         double shortestDistance = Double.MAX_VALUE;
-        for (Point adjacentPosition : target.pointsWithin(1.5)) {
+        Stencil adjacent = Stencil.of(1.5);
+        for (int i = 0; i < adjacent.size(); i++) {
+            int cell = adjacent.neighbor(target.getX(), target.getY(), i);
+            if (cell < 0) {
+                continue;
+            }
+            Point adjacentPosition = Point.of(cell);
             if (origin.equals(adjacentPosition) || field.isEmptyAt(adjacentPosition) && origin.distance(adjacentPosition) < shortestDistance) {
                 shortestDistance = origin.distance(adjacentPosition);
                 closest = adjacentPosition;
@@ -39,36 +64,41 @@ public class Route {
         int y1 = from.getY();
         int x2 = to.getX();
         int y2 = to.getY();
+        if (Rays.covers(x2 - x1, y2 - y1)) {
+            int[] ray = Rays.ray(x2 - x1, y2 - y1);
+            List<Point> straightSteps = new ArrayList<>(ray.length);
+            for (int step : ray) {
+                straightSteps.add(Point.of(x1 + Rays.offsetX(step), y1 + Rays.offsetY(step)));
+            }
+            return straightSteps;
+        }
         int numberOfSteps = Math.max(Math.abs(x2 - x1), Math.abs(y2 - y1));
         List<Point> straightSteps = new ArrayList<>(numberOfSteps);
         for (int t = 0; t <= numberOfSteps; t++) {
-            straightSteps.add(t, new Point(x1 + roundAwayFromZero(t * (x2 - x1) / ((double) numberOfSteps)), y1 + roundAwayFromZero(t * (y2 - y1) / ((double) numberOfSteps))));
+            straightSteps.add(t, Point.of(x1 + roundAwayFromZero(t * (x2 - x1) / ((double) numberOfSteps)), y1 + roundAwayFromZero(t * (y2 - y1) / ((double) numberOfSteps))));
         }
         return straightSteps;
     }
 
     public static Point shootAt(Point start, Point target) {
-        double shootDistance = start.distance(target);
-        for (int power = 24; power >= shootDistance; power--) {
-            int x1 = start.getX();
-            int y1 = start.getY();
-            int x2 = target.getX();
-            int y2 = target.getY();
-            double slope = (y2 - y1) / ((double) (x2 - x1));
-            double deltaX = (power / Math.sqrt(slope * slope + 1)) * (x2 > x1 ? 1 : -1);
-            int aimX = x1 + roundAwayFromZero(deltaX);
-            int aimY = y1 + roundAwayFromZero(slope * (aimX - x1));
-
-            Point aimPoint = new Point(aimX, aimY);
-            if (start.distance(aimPoint) <= Constants.MAX_LAUNCH_DISTANCE) {
-                Point hitPoint = hitPoint(start, aimPoint);
-//                LOG.log(Level.INFO, "Route: {0} to {1} Target: {2} Hitpoint: {3}", new Object[]{start, aimPoint, target, hitPoint});
-                if (hitPoint != null && hitPoint.equals(target)) {
-                    return aimPoint;
-                }
-            }
+        return shotSolver().aimAt(start, target);
+    }
+
+    /**
+     * Finds the space a paintball launched at an aim point hits, going by
+     * the heights on the field now.
+     *
+     * @param start where the paintball is launched from
+     * @param aim the point aimed at
+     * @return the cell index hit, or -1 if nothing is hit
+     */
+    public static int hitCell(Point start, Point aim) {
+        int dx = aim.getX() - start.getX();
+        int dy = aim.getY() - start.getY();
+        if (!Rays.covers(dx, dy)) {
+            return -1;
         }
-        return null;
+        return shotSolver().hitCell(start.getX(), start.getY(), dx, dy);
     }
 
     private static boolean hasObstacles(Collection<Point> points) {
@@ -80,114 +110,36 @@ public class Route {
         return false;
     }
 
-    private static List<Point> reconstructPath(Map<Point, Point> cameFrom, Point currentNode) {
-        if (cameFrom.containsKey(currentNode)) {
-            List<Point> p = reconstructPath(cameFrom, cameFrom.get(currentNode));
-            p.add(currentNode);
-            return p;
-        } else {
-            List<Point> p = new ArrayList<>(16);
-            p.add(currentNode);
-            return p;
+    /**
+     * Determines if nothing is in the way of a straight move between two
+     * spaces, including the space moved to.
+     */
+    static boolean openPath(int fromX, int fromY, int toX, int toY) {
+        if (!Rays.covers(toX - fromX, toY - fromY)) {
+            List<Point> straightRoute = straightRoute(Point.of(fromX, fromY), Point.of(toX, toY));
+            return !hasObstacles(straightRoute.subList(1, straightRoute.size()));
         }
-    }
-
-    private static Set<Point> neighborNodes(Point node, int distance) {
-        Set<Point> nodes = new HashSet<>(8);
-        for (Point neighbor : node.pointsWithin(distance)) {
-            if (openPath(node, neighbor)) {
-                nodes.add(neighbor);
+        int[] ray = Rays.ray(toX - fromX, toY - fromY);
+        for (int i = 1; i < ray.length; i++) {
+            int x = fromX + Rays.offsetX(ray[i]);
+            int y = fromY + Rays.offsetY(ray[i]);
+            if (x < 0 || x >= Constants.FIELD_DIMENSION || y < 0 || y >= Constants.FIELD_DIMENSION
+                    || !field.isEmptyAt(Point.index(x, y))) {
+                return false;
             }
         }
-        return nodes;
-
-    }
-
-    private static boolean openPath(Point from, Point to) {
-        List<Point> straightRoute = straightRoute(from, to);
-        return !hasObstacles(straightRoute.subList(1, straightRoute.size()));
-    }
-
-    private static Point hitPoint(Point from, Point to) {
-        List<Point> straightRoute = straightRoute(from, to);
-        for (int i = 1; i < straightRoute.size(); i++) {
-            Point point = straightRoute.get(i);
-            if (!point.exists()) {
-                return null;
-            }
-            double height;
-            if (i > 0.5 * straightRoute.size()) {
-                height = 18.0 * (1 - i / (double) straightRoute.size());
-                if (height <= 0) {
-                    return null;
-                }
-            } else {
-                height = 9.0;
-            }
-            if (height <= field.height(point)) {
-                return point;
-            }
-        }
-        return null;
-    }
-    
-    private static List<Point> routeTo(Point start, Point goal, int stepDistance) {
-        Set<Point> closedSet = new HashSet<>(16);
-        Set<Point> openSet = new HashSet<>(16);
-        openSet.add(start);
-        Map<Point, Point> cameFrom = new HashMap<>(16);
-
-        Map<Point, Integer> gScore = new HashMap<>(16);
-        gScore.put(start, 0);
-        Map<Point, Integer> fScore = new HashMap<>(16);
-        fScore.put(start, gScore.get(start) + (int) Math.ceil(start.distance(goal) / stepDistance));
-        while (!openSet.isEmpty()) {
-            int lowestFScore = Integer.MAX_VALUE;
-            Point current = null;
-            for (Point node : openSet) {
-                int fScoreOfNode = fScore.get(node);
-                if (fScoreOfNode < lowestFScore) {
-                    lowestFScore = fScoreOfNode;
-                    current = node;
-                }
-            }
-            if (current.equals(goal)) {
-                return reconstructPath(cameFrom, goal);
-            }
-
-            openSet.remove(current);
-            closedSet.add(current);
-            for (Point neighbor : neighborNodes(current, stepDistance)) {
-                if (closedSet.contains(neighbor)) {
-                    continue;
-                }
-                int tentativeGScore = gScore.get(current) + 1;
-
-                if (!openSet.contains(neighbor) || tentativeGScore < gScore.get(neighbor)) {
-                    cameFrom.put(neighbor, current);
-                    gScore.put(neighbor, tentativeGScore);
-                    fScore.put(neighbor, gScore.get(neighbor) + (int) Math.ceil(neighbor.distance(goal) / 3));
-                    if (!openSet.contains(neighbor)) {
-                        openSet.add(neighbor);
-                    }
-                }
-            }
-        }
-        return null;
+        return true;
     }
 
     public static Point firstMove(Point start, Point goal, int stepDistance) {
+        return pathFinder().firstMove(start, goal, stepDistance);
+    }
 
-        List<Point> steps = routeTo(start, goal, stepDistance);
-
-        if (steps == null) {
-            return null;
-        }
-
-        return steps.get(1);
+    public static int[] route(Point start, Point goal, int stepDistance) {
+        return pathFinder().route(start, goal, stepDistance);
     }
 
-    private static int roundAwayFromZero(double x) {
+    static int roundAwayFromZero(double x) {
         if (x < 0) {
             return -(int) (Math.round(-x));
         } else {
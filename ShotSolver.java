@@ -0,0 +1,218 @@
+import java.util.Arrays;
+
+/**
+ * Works out where to aim to hit a space.
+ *
+ * For each shooter position the solver keeps a hit map: for every space, the
+ * aim point that hits it. The map is filled two ways. Aiming along the line
+ * through the target, at every power from the farthest down to the target,
+ * is how shots have always been chosen and is solved lazily per target. The
+ * full map instead traces a flight to every aim point within
+ * MAX_LAUNCH_DISTANCE once and records what each one hits, which also finds
+ * shots that arc over obstacles at an angle.
+ *
+ * Hit maps only depend on the heights of the spaces, so they are kept until
+ * the field reports that a height changed.
+ */
+public class ShotSolver {
+
+    // marks an aim that has not been worked out yet
+    private static final int UNSOLVED = Integer.MIN_VALUE;
+
+    // marks a space that cannot be hit
+    private static final int NONE = -1;
+
+    // bias that keeps packed aim offsets positive
+    private static final int BIAS = 32;
+
+    // how many shooter positions to keep hit maps for
+    private static final int CACHE_SIZE = 8;
+
+    private final Field field;
+    private final HitMap[] hitMaps = new HitMap[CACHE_SIZE];
+    private int nextEvicted = 0;
+
+    public ShotSolver(Field field) {
+        this.field = field;
+        for (int i = 0; i < CACHE_SIZE; i++) {
+            hitMaps[i] = new HitMap();
+        }
+    }
+
+    /**
+     * Determines if this solver works from the given field.
+     *
+     * @param other a field
+     * @return true if hit maps are computed from that field
+     */
+    public boolean isFor(Field other) {
+        return field == other;
+    }
+
+    /**
+     * Finds a point to launch at so the paintball lands on the target. A shot
+     * along the line through the target is preferred, and any other aim
+     * point that hits the target is used if there is none.
+     *
+     * @param shooter where the paintball is launched from
+     * @param target the space to hit
+     * @return the point to aim at, or null if the target cannot be hit
+     */
+    public Point aimAt(Point shooter, Point target) {
+        Point aim = aimAlongLine(shooter, target);
+        return aim != null ? aim : aimFromAnywhere(shooter, target);
+    }
+
+    /**
+     * Finds a point on the line through the target that hits it, trying the
+     * most powerful launch first.
+     *
+     * @param shooter where the paintball is launched from
+     * @param target the space to hit
+     * @return the point to aim at, or null if no such point hits the target
+     */
+    public Point aimAlongLine(Point shooter, Point target) {
+        if (!target.exists()) {
+            return null;
+        }
+        HitMap hitMap = hitMapFor(shooter);
+        int cell = target.index();
+        if (hitMap.lineAims[cell] == UNSOLVED) {
+            hitMap.lineAims[cell] = solveAlongLine(shooter, target);
+        }
+        return toPoint(shooter, hitMap.lineAims[cell]);
+    }
+
+    /**
+     * Finds any point within launch distance that hits the target.
+     *
+     * @param shooter where the paintball is launched from
+     * @param target the space to hit
+     * @return the point to aim at, or null if nothing hits the target
+     */
+    public Point aimFromAnywhere(Point shooter, Point target) {
+        if (!target.exists()) {
+            return null;
+        }
+        HitMap hitMap = hitMapFor(shooter);
+        if (!hitMap.full) {
+            fillHitMap(shooter, hitMap);
+        }
+        return toPoint(shooter, hitMap.anyAims[target.index()]);
+    }
+
+    /**
+     * Finds the space a paintball lands on.
+     *
+     * @param fromX where the paintball is launched from
+     * @param fromY where the paintball is launched from
+     * @param dx the offset to the aim point
+     * @param dy the offset to the aim point
+     * @return the cell index hit, or -1 if the paintball lands without
+     * hitting anything or leaves the field
+     */
+    public int hitCell(int fromX, int fromY, int dx, int dy) {
+        int[] ray = Rays.ray(dx, dy);
+        double[] heights = Rays.flightHeights(ray.length - 1);
+        for (int i = 1; i < ray.length; i++) {
+            int x = fromX + Rays.offsetX(ray[i]);
+            int y = fromY + Rays.offsetY(ray[i]);
+            if (x < 0 || x >= Constants.FIELD_DIMENSION || y < 0 || y >= Constants.FIELD_DIMENSION) {
+                return -1;
+            }
+            double height = heights[i];
+            if (height <= 0) {
+                return -1;
+            }
+            int cell = Point.index(x, y);
+            if (height <= field.height(cell)) {
+                return cell;
+            }
+        }
+        return -1;
+    }
+
+    private int solveAlongLine(Point start, Point target) {
+        double shootDistance = start.distance(target);
+        int x1 = start.getX();
+        int y1 = start.getY();
+        int x2 = target.getX();
+        int y2 = target.getY();
+        double slope = (y2 - y1) / ((double) (x2 - x1));
+        for (int power = Constants.MAX_LAUNCH_DISTANCE; power >= shootDistance; power--) {
+            double deltaX = (power / Math.sqrt(slope * slope + 1)) * (x2 > x1 ? 1 : -1);
+            int aimX = Route.roundAwayFromZero(deltaX);
+            int aimY = Route.roundAwayFromZero(slope * aimX);
+            if (aimX * aimX + aimY * aimY <= Constants.MAX_LAUNCH_DISTANCE * Constants.MAX_LAUNCH_DISTANCE) {
+                Metrics.count(Metrics.SHOT_CHECKS, 1);
+                if (hitCell(x1, y1, aimX, aimY) == target.index()) {
+                    return pack(aimX, aimY);
+                }
+            }
+        }
+        return NONE;
+    }
+
+    private void fillHitMap(Point shooter, HitMap hitMap) {
+        Stencil aims = Stencil.of(Constants.MAX_LAUNCH_DISTANCE);
+        for (int i = 0; i < aims.size(); i++) {
+            int dx = aims.offsetX(i);
+            int dy = aims.offsetY(i);
+            int cell = hitCell(shooter.getX(), shooter.getY(), dx, dy);
+            if (cell >= 0 && hitMap.anyAims[cell] == NONE) {
+                hitMap.anyAims[cell] = pack(dx, dy);
+            }
+        }
+        Metrics.count(Metrics.SHOT_CHECKS, aims.size());
+        hitMap.full = true;
+    }
+
+    private HitMap hitMapFor(Point shooter) {
+        int cell = shooter.index();
+        int version = field.heightVersion();
+        for (HitMap hitMap : hitMaps) {
+            if (hitMap.shooter == cell) {
+                if (hitMap.version != version) {
+                    hitMap.reset(cell, version);
+                }
+                return hitMap;
+            }
+        }
+        HitMap hitMap = hitMaps[nextEvicted];
+        nextEvicted = (nextEvicted + 1) % CACHE_SIZE;
+        hitMap.reset(cell, version);
+        return hitMap;
+    }
+
+    private static int pack(int dx, int dy) {
+        return ((dx + BIAS) << 8) | (dy + BIAS);
+    }
+
+    private static Point toPoint(Point shooter, int aim) {
+        if (aim == NONE) {
+            return null;
+        }
+        return Point.of(shooter.getX() + (aim >>> 8) - BIAS, shooter.getY() + (aim & 0xff) - BIAS);
+    }
+
+    /**
+     * The aim points found for one shooter position.
+     */
+    private static class HitMap {
+        int shooter = -1;
+        int version;
+        boolean full;
+        // aim along the line through each space, indexed by cell
+        final int[] lineAims = new int[Constants.NUM_CELLS];
+        // any aim that hits each space, indexed by cell
+        final int[] anyAims = new int[Constants.NUM_CELLS];
+
+        void reset(int shooterCell, int heightVersion) {
+            shooter = shooterCell;
+            version = heightVersion;
+            full = false;
+            Arrays.fill(lineAims, UNSOLVED);
+            Arrays.fill(anyAims, NONE);
+        }
+    }
+}
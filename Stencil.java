@@ -0,0 +1,141 @@
+import java.util.Arrays;
+
+/**
+ * The offsets of every space within some radius of a point, not counting the
+ * point itself.
+ *
+ * Which offsets a radius covers only depends on the largest whole number
+ * whose square root is within it, so stencils are cached in an array indexed
+ * by that number, without locking. Neighbors are visited by index so that
+ * walking them does not allocate anything:
+ *
+ * <pre>
+ * Stencil stencil = Stencil.of(1.5);
+ * for (int i = 0; i &lt; stencil.size(); i++) {
+ *     int cell = stencil.neighbor(x, y, i);
+ *     if (cell &gt;= 0) {
+ *         ...
+ *     }
+ * }
+ * </pre>
+ */
+public final class Stencil {
+
+    // no offset on the field is further than this, squared
+    private static final int MAX_SQUARED_RADIUS = 2 * (Constants.FIELD_DIMENSION - 1) * (Constants.FIELD_DIMENSION - 1);
+
+    // stencils indexed by squared radius, filled in as they are asked for;
+    // a stencil only has final fields, so a thread that sees one sees all of
+    // it, and two threads building the same one at once is harmless
+    private static final Stencil[] CACHE = new Stencil[MAX_SQUARED_RADIUS + 1];
+
+    // stencils for the step distances of a child, indexed by step distance
+    private static final Stencil[] STEPS = new Stencil[4];
+
+    static {
+        for (int step = 1; step < STEPS.length; step++) {
+            STEPS[step] = of(step);
+        }
+        of(1.5);
+    }
+
+    private final int[] offsetsX;
+    private final int[] offsetsY;
+
+    private Stencil(int squaredRadius) {
+        int reach = (int) Math.sqrt(squaredRadius);
+        int[] xs = new int[(2 * reach + 1) * (2 * reach + 1)];
+        int[] ys = new int[xs.length];
+        int count = 0;
+        for (int i = -reach; i <= reach; i++) {
+            for (int j = -reach; j <= reach; j++) {
+                if ((i != 0 || j != 0) && i * i + j * j <= squaredRadius) {
+                    xs[count] = i;
+                    ys[count] = j;
+                    count++;
+                }
+            }
+        }
+        offsetsX = Arrays.copyOf(xs, count);
+        offsetsY = Arrays.copyOf(ys, count);
+    }
+
+    /**
+     * Gets the stencil for a radius.
+     *
+     * @param radius the largest distance from the center to include
+     * @return the cached stencil
+     */
+    public static Stencil of(double radius) {
+        int squaredRadius = squaredRadius(radius);
+        Stencil stencil = CACHE[squaredRadius];
+        if (stencil == null) {
+            stencil = new Stencil(squaredRadius);
+            CACHE[squaredRadius] = stencil;
+        }
+        return stencil;
+    }
+
+    // the largest whole number, up to MAX_SQUARED_RADIUS, whose square root
+    // is no more than the radius
+    private static int squaredRadius(double radius) {
+        if (radius < 0) {
+            return 0;
+        }
+        if (radius * radius >= MAX_SQUARED_RADIUS) {
+            return MAX_SQUARED_RADIUS;
+        }
+        int squared = (int) (radius * radius);
+        while (Math.sqrt(squared + 1) <= radius) {
+            squared++;
+        }
+        while (squared > 0 && Math.sqrt(squared) > radius) {
+            squared--;
+        }
+        return squared;
+    }
+
+    /**
+     * Gets the stencil of the spaces a child can move to in one move.
+     *
+     * @param stepDistance how far a single move can go
+     * @return the cached stencil
+     */
+    public static Stencil forStep(int stepDistance) {
+        return STEPS[stepDistance];
+    }
+
+    /**
+     * Gets the number of offsets in this stencil.
+     *
+     * @return the number of offsets
+     */
+    public int size() {
+        return offsetsX.length;
+    }
+
+    public int offsetX(int i) {
+        return offsetsX[i];
+    }
+
+    public int offsetY(int i) {
+        return offsetsY[i];
+    }
+
+    /**
+     * Gets the cell index of a neighbor of a space.
+     *
+     * @param x the x coordinate of the center
+     * @param y the y coordinate of the center
+     * @param i which offset to apply
+     * @return the cell index of the neighbor, or -1 if it is off the field
+     */
+    public int neighbor(int x, int y, int i) {
+        int neighborX = x + offsetsX[i];
+        int neighborY = y + offsetsY[i];
+        if (neighborX < 0 || neighborX >= Constants.FIELD_DIMENSION || neighborY < 0 || neighborY >= Constants.FIELD_DIMENSION) {
+            return -1;
+        }
+        return Point.index(neighborX, neighborY);
+    }
+}
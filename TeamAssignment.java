@@ -0,0 +1,180 @@
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Shares out objectives among the children on our team so the team as a
+ * whole gets the most out of them, rather than each child taking its own
+ * favourite.
+ *
+ * Items to pick up and flags to plant are only worth going for by one child,
+ * so each gets a column that any child can be assigned to. Everything else
+ * (shooting, closing in on an enemy, exploring) can be done by every child
+ * at once, so each child gets a column of its own holding the best of those.
+ * The Hungarian algorithm then finds the assignment of children to columns
+ * with the highest total score. A child's score for an objective already
+ * counts the moves it takes to get there, as worked out by its distance
+ * field.
+ */
+public class TeamAssignment {
+
+    private static final double INFINITY = Double.MAX_VALUE;
+
+    // objectives that can be done right away score infinitely high, so
+    // scores are capped to keep the sums finite
+    private static final double MAX_SCORE = 1e9;
+
+    private final int children;
+
+    // scores are negated into costs; a child with no objective for a column
+    // costs nothing there, the same as not being assigned
+    private final double[][] cost;
+    private final Objective[][] objectives;
+    private int columns;
+
+    // column of each space holding an item or flag, valid when stamped with
+    // the current generation
+    private final int[] columnOf = new int[Constants.NUM_CELLS];
+    private final int[] columnStamp = new int[Constants.NUM_CELLS];
+    private int generation = 0;
+
+    // Hungarian algorithm state, indexed from 1 with 0 as a sentinel
+    private final double[] rowPotential;
+    private final double[] columnPotential;
+    private final double[] slack;
+    private final int[] rowOf;
+    private final int[] previous;
+    private final boolean[] visited;
+
+    public TeamAssignment(int children) {
+        this.children = children;
+        int maxColumns = Constants.NUM_CELLS + children;
+        cost = new double[children + 1][maxColumns + 1];
+        objectives = new Objective[children + 1][maxColumns + 1];
+        rowPotential = new double[children + 1];
+        columnPotential = new double[maxColumns + 1];
+        slack = new double[maxColumns + 1];
+        rowOf = new int[maxColumns + 1];
+        previous = new int[maxColumns + 1];
+        visited = new boolean[maxColumns + 1];
+    }
+
+    /**
+     * Assigns each child an objective from its rankings.
+     *
+     * @param rankings the score of each objective, for each child in team
+     * order; null for a child that has none
+     * @param assigned where to put each child's objective, null for a child
+     * left without one
+     * @return false if the turn ran out before every child was assigned, in
+     * which case nothing is
+     */
+    public boolean assign(Map<Objective, Double>[] rankings, Objective[] assigned) {
+        build(rankings);
+        if (!solve()) {
+            return false;
+        }
+        Arrays.fill(assigned, null);
+        for (int column = 1; column <= columns; column++) {
+            int row = rowOf[column];
+            if (row > 0) {
+                assigned[row - 1] = objectives[row][column];
+            }
+        }
+        return true;
+    }
+
+    // fills in the cost matrix, giving each child's private column the
+    // first columns
+    private void build(Map<Objective, Double>[] rankings) {
+        generation++;
+        columns = children;
+        for (int row = 1; row <= children; row++) {
+            Arrays.fill(cost[row], 0, cost[row].length, 0);
+            Arrays.fill(objectives[row], 0, objectives[row].length, null);
+        }
+        for (int row = 1; row <= children; row++) {
+            if (rankings[row - 1] == null) {
+                continue;
+            }
+            for (Map.Entry<Objective, Double> entry : rankings[row - 1].entrySet()) {
+                int column = columnFor(row, entry.getKey());
+                double score = Math.min(entry.getValue(), MAX_SCORE);
+                if (-score < cost[row][column]) {
+                    cost[row][column] = -score;
+                    objectives[row][column] = entry.getKey();
+                }
+            }
+        }
+    }
+
+    private int columnFor(int row, Objective objective) {
+        Action action = objective.getAction();
+        Action.Opcode opcode = action.getOpcode();
+        if (opcode != Action.Opcode.PICKUP && opcode != Action.Opcode.PLANT) {
+            return row;
+        }
+        // items and the empty spaces flags are planted on never share a space
+        int cell = action.getTarget().index();
+        if (columnStamp[cell] != generation) {
+            columnStamp[cell] = generation;
+            columnOf[cell] = ++columns;
+        }
+        return columnOf[cell];
+    }
+
+    // the Hungarian algorithm with potentials, adding one row at a time
+    private boolean solve() {
+        Arrays.fill(rowPotential, 0);
+        Arrays.fill(columnPotential, 0, columns + 1, 0);
+        Arrays.fill(rowOf, 0, columns + 1, 0);
+        for (int row = 1; row <= children; row++) {
+            if (TurnDeadline.expired()) {
+                return false;
+            }
+            rowOf[0] = row;
+            int column = 0;
+            Arrays.fill(slack, 0, columns + 1, INFINITY);
+            Arrays.fill(visited, 0, columns + 1, false);
+            do {
+                visited[column] = true;
+                int current = rowOf[column];
+                double delta = INFINITY;
+                int next = 0;
+                for (int j = 1; j <= columns; j++) {
+                    if (visited[j]) {
+                        continue;
+                    }
+                    double reduced = cost[current][j] - rowPotential[current] - columnPotential[j];
+                    if (reduced < slack[j]) {
+                        slack[j] = reduced;
+                        previous[j] = column;
+                    }
+                    if (slack[j] < delta) {
+                        delta = slack[j];
+                        next = j;
+                    }
+                }
+                for (int j = 0; j <= columns; j++) {
+                    if (visited[j]) {
+                        rowPotential[rowOf[j]] += delta;
+                        columnPotential[j] -= delta;
+                    } else {
+                        slack[j] -= delta;
+                    }
+                }
+                if (next == 0) {
+                    // only possible if a score was not a number
+                    return false;
+                }
+                column = next;
+            } while (rowOf[column] != 0);
+            // flip the augmenting path
+            do {
+                int before = previous[column];
+                rowOf[column] = rowOf[before];
+                column = before;
+            } while (column != 0);
+        }
+        return true;
+    }
+}
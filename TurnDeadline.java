@@ -0,0 +1,56 @@
+/**
+ * The time budget for deciding a turn.
+ *
+ * The clock starts as soon as the turn has been read from the game engine.
+ * Long searches poll expired() every so often and stop with the best answer
+ * they have so far, and children check nearlySpent() to decide whether to
+ * keep working toward last turn's objective instead of choosing a new one.
+ */
+public final class TurnDeadline {
+
+    // how far into the budget a turn counts as nearly spent, in percent
+    private static final int NEARLY_SPENT_PERCENT = 80;
+
+    /**
+     * The longest budget a turn can have, in milliseconds: a day, which
+     * is as good as no limit at all.
+     */
+    public static final long NO_LIMIT_MILLIS = 24L * 60 * 60 * 1000;
+
+    private static volatile long start = System.nanoTime();
+    private static volatile long budget = NO_LIMIT_MILLIS * 1000000L;
+    private static volatile long nearlySpent = budget / 100 * NEARLY_SPENT_PERCENT;
+
+    /**
+     * Starts the clock for a new turn.
+     *
+     * @param budgetMillis how long the turn may take, in milliseconds; more
+     * than NO_LIMIT_MILLIS counts as NO_LIMIT_MILLIS
+     */
+    public static void start(long budgetMillis) {
+        budget = Math.min(budgetMillis, NO_LIMIT_MILLIS) * 1000000L;
+        nearlySpent = budget / 100 * NEARLY_SPENT_PERCENT;
+        start = System.nanoTime();
+    }
+
+    /**
+     * Determines if the turn is out of time.
+     *
+     * @return true if the whole budget has been used
+     */
+    public static boolean expired() {
+        return System.nanoTime() - start >= budget;
+    }
+
+    /**
+     * Determines if the turn is close to running out of time.
+     *
+     * @return true if most of the budget has been used
+     */
+    public static boolean nearlySpent() {
+        return System.nanoTime() - start >= nearlySpent;
+    }
+
+    private TurnDeadline() {
+    }
+}
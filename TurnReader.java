@@ -0,0 +1,174 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Parses the turn state sent by the game engine.
+ *
+ * Tokens are read straight out of a byte buffer and decoded as they are
+ * scanned, so reading a turn creates no strings. Input is rejected wherever
+ * the Scanner-based parser this replaced rejected it: numbers must be whole
+ * tokens and field symbols must be known.
+ */
+public class TurnReader {
+
+    private static final int[] sFieldMapping = {
+        Constants.ADAPTER, Constants.BLUE_FLAG, Constants.EMPTY, Constants.EMPTY, Constants.EMPTY,
+        Constants.RAPID_FIRE_LAUNCHER, Constants.EMPTY, Constants.EMPTY, Constants.EMPTY, Constants.EMPTY,
+        Constants.EMPTY, Constants.BASIC_LAUNCHER, Constants.EMPTY, Constants.EMPTY, Constants.EMPTY,
+        Constants.EMPTY, Constants.EMPTY, Constants.RED_FLAG, Constants.SHIELD, Constants.TREE,
+        Constants.EMPTY, Constants.LOW_WALL, Constants.HIGH_WALL, Constants.EMPTY, Constants.EMPTY, Constants.EMPTY
+    };
+
+    private final InputStream in;
+    private final byte[] buffer = new byte[1 << 16];
+    private int position = 0;
+    private int limit = 0;
+
+    public TurnReader(InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * Reads a whole number.
+     *
+     * @return the number
+     * @throws IOException if the input ends or cannot be read
+     */
+    public int readInt() throws IOException {
+        return parseInt(skipWhitespace());
+    }
+
+    private int parseInt(int first) throws IOException {
+        int c = first;
+        boolean negative = c == '-';
+        if (negative) {
+            c = read();
+        }
+        if (c < '0' || c > '9') {
+            throw new IOException("Expected a number from the game engine");
+        }
+        int value = 0;
+        while (c >= '0' && c <= '9') {
+            value = 10 * value + (c - '0');
+            c = read();
+        }
+        if (c > ' ') {
+            throw new IOException("Expected a number from the game engine");
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Reads the encoding of one field space and maps it to the integer
+     * constant stored in the field map.
+     *
+     * @return the integer code representing the space's contents
+     * @throws IOException if the input ends or cannot be read
+     */
+    public int readFieldCell() throws IOException {
+        int code = skipWhitespace();
+        if (code == '*') {
+            // a * means that we cannot see what is at that field location
+            skipToken();
+            return Constants.UNKNOWN;
+        } else if (code == '.') {
+            // a . means the space is empty
+            skipToken();
+            return Constants.EMPTY;
+        } else if (code == 'P') {
+            // an encoding that starts with P represents a pile of paintballs
+            // we store the number of paintballs in the space as a negative value (the value is the number
+            // of paintballs) to distinguish from the other space encodings
+            return -parseInt(read());
+        } else if (code >= 'A' && code <= 'Z') {
+            // use a simple array to map the code to an integer encoding
+            skipToken();
+            return sFieldMapping[ code - 'A'];
+        } else {
+            throw new IOException("Unknown field symbol from the game engine");
+        }
+    }
+
+    /**
+     * Reads the state of one child and stores it in the child.
+     *
+     * @param child the child to update
+     * @throws IOException if the input ends or cannot be read
+     */
+    public void readChild(Child child) throws IOException {
+        int c = skipWhitespace();
+        if (c == '*') {
+            // if the encoding is just a *, then it means we can't see this child.
+            // this could only happen for children on the other team
+            skipToken();
+            child.setPosition(Point.OFF_FIELD);
+            return;
+        }
+        // we can see this child.
+
+        // Record the child's location.
+        int x = parseInt(c);
+        int y = readInt();
+        child.setPosition(Point.of(x, y));
+
+        // read posture ( standing = S, crouching = C )
+        child.setIsStanding(readFlag('S'));
+
+        // read defending mode ( defending = D, not defending = U )
+        child.setIsDefending(readFlag('D'));
+
+        // read inventory
+        child.setHolding(readSymbol() - 'a');
+
+        // read the number of paintballs the child is holding
+        child.setPaintballCount(readInt());
+    }
+
+    // true if the next token is exactly the given symbol
+    private boolean readFlag(int symbol) throws IOException {
+        int c = skipWhitespace();
+        int next = read();
+        if (next <= ' ') {
+            return c == symbol;
+        }
+        skipToken();
+        return false;
+    }
+
+    private int readSymbol() throws IOException {
+        int c = skipWhitespace();
+        skipToken();
+        return c;
+    }
+
+    private int skipWhitespace() throws IOException {
+        int c = read();
+        while (c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+            c = read();
+        }
+        if (c < 0) {
+            throw new EOFException("Game engine closed the input");
+        }
+        return c;
+    }
+
+    private void skipToken() throws IOException {
+        int c = read();
+        while (c > ' ') {
+            c = read();
+        }
+    }
+
+    private int read() throws IOException {
+        if (position == limit) {
+            limit = in.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[position++];
+    }
+}
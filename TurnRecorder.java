@@ -0,0 +1,100 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Records every turn of a game, and the actions chosen, so that a slow game
+ * can be replayed later.
+ *
+ * Each turn is flushed once its actions are recorded, so a recording cut
+ * off when the player is killed still holds every finished turn. The
+ * recording is a stream of big endian values:
+ * <pre>
+ * int    MAGIC
+ * turns:
+ *   int    turn number (-1, or the end of the stream, ends the recording)
+ *   int    red score, int blue score
+ *   byte   x 961, each space by column, as the field array holds it; a
+ *          value that does not fit is written as Byte.MIN_VALUE then an int
+ *   8 children, red first:
+ *     byte   x, or -1 if the child cannot be seen, then only if it can:
+ *     byte   y, byte STANDING | DEFENDING, byte holding, short paintballs
+ *   byte   number of actions, then each action's command as modified UTF-8
+ * </pre>
+ */
+public class TurnRecorder {
+
+    public static final int MAGIC = 0x50425231;
+
+    public static final int STANDING = 1;
+    public static final int DEFENDING = 2;
+
+    private final DataOutputStream out;
+
+    public TurnRecorder(OutputStream out) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+        this.out.writeInt(MAGIC);
+    }
+
+    /**
+     * Records the state of a turn, as read from the game engine.
+     *
+     * @param turnNumber the turn number
+     * @param scores the score of each team
+     * @param field the field contents
+     * @param children all the children, in the order the engine sends them
+     * @throws IOException if the recording cannot be written
+     */
+    public void recordTurn(int turnNumber, int[] scores, int[][] field, Child[] children) throws IOException {
+        out.writeInt(turnNumber);
+        out.writeInt(scores[Constants.RED]);
+        out.writeInt(scores[Constants.BLUE]);
+        for (int[] column : field) {
+            for (int cell : column) {
+                if (cell > Byte.MIN_VALUE && cell <= Byte.MAX_VALUE) {
+                    out.writeByte(cell);
+                } else {
+                    out.writeByte(Byte.MIN_VALUE);
+                    out.writeInt(cell);
+                }
+            }
+        }
+        for (Child child : children) {
+            Point position = child.getPosition();
+            if (position == null || !position.exists()) {
+                out.writeByte(-1);
+                continue;
+            }
+            out.writeByte(position.getX());
+            out.writeByte(position.getY());
+            out.writeByte((child.isStanding() ? STANDING : 0) | (child.isDefending() ? DEFENDING : 0));
+            out.writeByte(child.getHolding());
+            out.writeShort(child.getPaintballCount());
+        }
+    }
+
+    /**
+     * Records the actions chosen for the turn recorded last.
+     *
+     * @param actions the actions sent to the game engine
+     * @throws IOException if the recording cannot be written
+     */
+    public void recordActions(Action[] actions) throws IOException {
+        out.writeByte(actions.length);
+        for (Action action : actions) {
+            out.writeUTF(action.toString());
+        }
+        out.flush();
+    }
+
+    /**
+     * Ends the recording and closes it.
+     *
+     * @throws IOException if the recording cannot be written
+     */
+    public void close() throws IOException {
+        out.writeInt(-1);
+        out.close();
+    }
+}
@@ -0,0 +1,185 @@
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * The player's hot paths, set up on a fixed game state, for the JMH
+ * benchmarks in jmh/ to time.
+ *
+ * JMH will not generate code for benchmarks in the default package, and a
+ * class in a named package cannot refer to the player's classes, so
+ * benchmarks.PlayerBenchmark looks this class up by name and calls each
+ * operation through Callable. Every operation returns its result so JMH can
+ * keep the JIT from throwing the work away.
+ */
+public final class Benchmarks {
+
+    /**
+     * A game recorded with Simulator record, found from the top of the
+     * repository.
+     */
+    public static final String RECORDED = "bench/recorded.rec";
+
+    /**
+     * Sets up a fixture and the operations to time on it.
+     *
+     * @param fixtureName empty, dense-walls, late-game, recorded, or the path
+     * of any game recorded by TurnRecorder, whose middle turn is used
+     * @return each operation, by name
+     * @throws IOException if a recording cannot be read
+     */
+    public static Map<String, Callable<Object>> operations(String fixtureName) throws IOException {
+        final Fixture fixture = fixture(fixtureName);
+        final Child[] children = new Child[Constants.NUM_CHILDREN_PER_TEAM * 2];
+        final int[][] grid = Field.copyField(fixture.field);
+        final Field field = new Field(grid, children);
+        Route.setField(field);
+        children[0] = new Scout(Constants.RED, field);
+        for (int i = 1; i < children.length; i++) {
+            children[i] = new Fighter(i < Constants.NUM_CHILDREN_PER_TEAM ? Constants.RED : Constants.BLUE, field);
+        }
+        place(children, fixture);
+        TurnDeadline.start(TurnDeadline.NO_LIMIT_MILLIS);
+        field.update(fixture.field);
+
+        final Point start = children[0].getPosition();
+        final Point goal = Point.of(Constants.NUM_CELLS - 1 - start.index());
+        final Point shooter = children[1].getPosition();
+        final Point target = firstVisibleEnemy(children);
+
+        Map<String, Callable<Object>> operations = new LinkedHashMap<>();
+        operations.put("Route.firstMove", new Callable<Object>() {
+            @Override
+            public Object call() {
+                return Route.firstMove(start, goal, 3);
+            }
+        });
+        operations.put("Route.shootAt", new Callable<Object>() {
+            @Override
+            public Object call() {
+                return Route.shootAt(shooter, target);
+            }
+        });
+        operations.put("ShotSolver.aimAt", new Callable<Object>() {
+            @Override
+            public Object call() {
+                return new ShotSolver(field).aimAt(shooter, target);
+            }
+        });
+        operations.put("Point.pointsWithin", new Callable<Object>() {
+            @Override
+            public Object call() {
+                return start.pointsWithin(8);
+            }
+        });
+        operations.put("Field.canEnemySee", new Callable<Object>() {
+            @Override
+            public Object call() {
+                return field.canEnemySee(start);
+            }
+        });
+
+        // alternate between two grids so that every update has changes to apply
+        final int[][] changed = Field.copyField(fixture.field);
+        for (int x = 10; x < 21; x++) {
+            changed[x][15] = changed[x][15] == Constants.EMPTY ? Constants.LOW_WALL : Constants.EMPTY;
+        }
+        operations.put("Field.update", new Callable<Object>() {
+            private boolean flip;
+
+            @Override
+            public Object call() {
+                flip = !flip;
+                field.update(flip ? changed : fixture.field);
+                return field;
+            }
+        });
+
+        // every turn starts from the same positions, so only the first
+        // decision of a child could ever be resumed from an earlier plan
+        operations.put("Scout.chooseAction", new Callable<Object>() {
+            @Override
+            public Object call() {
+                newTurn(children, field, fixture);
+                return children[0].chooseAction();
+            }
+        });
+        operations.put("Fighter.chooseAction", new Callable<Object>() {
+            @Override
+            public Object call() {
+                newTurn(children, field, fixture);
+                return children[1].chooseAction();
+            }
+        });
+
+        final byte[] frames = fixture.frames(20);
+        operations.put("PaintballPlayer.run", new Callable<Object>() {
+            @Override
+            public Object call() throws IOException {
+                PaintballPlayer player = new PaintballPlayer();
+                player.run(new ByteArrayInputStream(frames), DISCARD);
+                return player;
+            }
+        });
+        return operations;
+    }
+
+    private static Fixture fixture(String name) throws IOException {
+        switch (name) {
+            case "empty":
+                return Fixture.empty();
+            case "dense-walls":
+                return Fixture.denseWalls(1306);
+            case "late-game":
+                return Fixture.lateGame(1306);
+            case "recorded":
+                return Fixture.recorded(name, Recording.read(RECORDED));
+            default:
+                return Fixture.recorded(new File(name).getName(), Recording.read(name));
+        }
+    }
+
+    // enemies in a recorded game are often out of sight
+    private static Point firstVisibleEnemy(Child[] children) {
+        for (int i = Constants.NUM_CHILDREN_PER_TEAM; i < children.length; i++) {
+            if (children[i].getPosition().exists()) {
+                return children[i].getPosition();
+            }
+        }
+        return Point.of(Constants.NUM_CELLS - 1 - children[1].getPosition().index());
+    }
+
+    private static void newTurn(Child[] children, Field field, Fixture fixture) {
+        place(children, fixture);
+        TurnDeadline.start(Constants.TURN_TIME_BUDGET_MILLIS);
+        field.update(fixture.field);
+    }
+
+    private static void place(Child[] children, Fixture fixture) {
+        for (int i = 0; i < children.length; i++) {
+            Frames.ChildState state = fixture.children[i];
+            children[i].setPosition(state.isVisible() ? Point.of(state.x, state.y) : Point.OFF_FIELD);
+            children[i].setIsStanding(state.standing);
+            children[i].setIsDefending(state.defending);
+            children[i].setHolding(state.holding);
+            children[i].setPaintballCount(state.paintballs);
+        }
+    }
+
+    private static final OutputStream DISCARD = new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    };
+
+    private Benchmarks() {
+    }
+}
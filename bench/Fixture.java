@@ -0,0 +1,155 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * A representative game state for benchmarks.
+ *
+ * Generated fields are point symmetric like real maps, our children start in
+ * the bottom left and the enemies in the top right. A fixture can also be a
+ * turn taken from a game recorded by TurnRecorder.
+ */
+final class Fixture {
+
+    final String name;
+    final int[][] field;
+    final Frames.ChildState[] children;
+
+    // the game this fixture was taken from and which turn, if it was recorded
+    private final Recording recording;
+    private final int turn;
+
+    private Fixture(String name, int[][] field, Frames.ChildState[] children) {
+        this(name, field, children, null, 0);
+    }
+
+    private Fixture(String name, int[][] field, Frames.ChildState[] children, Recording recording, int turn) {
+        this.name = name;
+        this.field = field;
+        this.children = children;
+        this.recording = recording;
+        this.turn = turn;
+    }
+
+    /**
+     * A field with nothing on it, everything visible.
+     */
+    static Fixture empty() {
+        return new Fixture("empty", new int[Constants.FIELD_DIMENSION][Constants.FIELD_DIMENSION], startingChildren());
+    }
+
+    /**
+     * A field about a third covered in walls and trees, everything visible.
+     */
+    static Fixture denseWalls(long seed) {
+        Random random = new Random(seed);
+        int[][] field = new int[Constants.FIELD_DIMENSION][Constants.FIELD_DIMENSION];
+        int[] obstacles = {Constants.TREE, Constants.LOW_WALL, Constants.HIGH_WALL};
+        scatter(field, random, Constants.NUM_CELLS / 6, obstacles);
+        Frames.ChildState[] children = startingChildren();
+        clearAround(field, children);
+        return new Fixture("dense-walls", field, children);
+    }
+
+    /**
+     * A field late in a game: some walls, items and paintball piles, planted
+     * flags, a few spaces never seen and children spread out.
+     */
+    static Fixture lateGame(long seed) {
+        Random random = new Random(seed);
+        int[][] field = new int[Constants.FIELD_DIMENSION][Constants.FIELD_DIMENSION];
+        scatter(field, random, 90, new int[] {Constants.TREE, Constants.LOW_WALL, Constants.HIGH_WALL});
+        scatter(field, random, 12, new int[] {Constants.SHIELD, Constants.ADAPTER, Constants.BASIC_LAUNCHER, Constants.RAPID_FIRE_LAUNCHER});
+        scatter(field, random, 20, new int[] {-3, -5, -8});
+        field[5][5] = Constants.RED_FLAG;
+        field[25][25] = Constants.BLUE_FLAG;
+        for (int k = 0; k < Constants.NUM_CELLS / 10; k++) {
+            field[random.nextInt(Constants.FIELD_DIMENSION)][random.nextInt(Constants.FIELD_DIMENSION)] = Constants.UNKNOWN;
+        }
+        Frames.ChildState[] children = new Frames.ChildState[2 * Constants.NUM_CHILDREN_PER_TEAM];
+        for (int i = 0; i < Constants.NUM_CHILDREN_PER_TEAM; i++) {
+            children[i] = new Frames.ChildState(6 + 5 * i, 10 + 3 * i, 20);
+            children[i + Constants.NUM_CHILDREN_PER_TEAM] = new Frames.ChildState(24 - 5 * i, 20 - 3 * i, 20);
+        }
+        clearAround(field, children);
+        return new Fixture("late-game", field, children);
+    }
+
+    /**
+     * A field at the start of a game: walls, items and paintball piles, with
+     * each team in its own corner.
+     */
+    static Fixture startOfGame(long seed) {
+        Random random = new Random(seed);
+        int[][] field = new int[Constants.FIELD_DIMENSION][Constants.FIELD_DIMENSION];
+        scatter(field, random, 60, new int[] {Constants.TREE, Constants.LOW_WALL, Constants.HIGH_WALL});
+        scatter(field, random, 8, new int[] {Constants.SHIELD, Constants.ADAPTER, Constants.BASIC_LAUNCHER, Constants.RAPID_FIRE_LAUNCHER});
+        scatter(field, random, 40, new int[] {-2, -5, -9});
+        Frames.ChildState[] children = startingChildren();
+        clearAround(field, children);
+        return new Fixture("start-of-game", field, children);
+    }
+
+    /**
+     * The turn halfway through a recorded game.
+     *
+     * @param name what to call the fixture
+     * @param recording the game
+     */
+    static Fixture recorded(String name, Recording recording) {
+        int turn = recording.size() / 2;
+        return new Fixture(name, recording.fields.get(turn), recording.children.get(turn), recording, turn);
+    }
+
+    /**
+     * Builds a stream of turns ending the game. A recorded fixture gives the
+     * turns recorded from its own on, as many as there are; any other repeats
+     * its state.
+     *
+     * @param turns how many turns to write
+     * @return the frames as the game engine would send them
+     */
+    byte[] frames(int turns) {
+        StringBuilder out = new StringBuilder(turns * 2200);
+        if (recording != null) {
+            for (int i = turn; i < Math.min(recording.size(), turn + turns); i++) {
+                out.append(new String(recording.frame(i), StandardCharsets.US_ASCII));
+            }
+        } else {
+            for (int i = 0; i < turns; i++) {
+                Frames.appendTurn(out, i, 0, 0, field, children);
+            }
+        }
+        Frames.appendEnd(out);
+        return out.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static Frames.ChildState[] startingChildren() {
+        Frames.ChildState[] children = new Frames.ChildState[2 * Constants.NUM_CHILDREN_PER_TEAM];
+        for (int i = 0; i < Constants.NUM_CHILDREN_PER_TEAM; i++) {
+            children[i] = new Frames.ChildState(2 + 2 * i, 2, 10);
+            children[i + Constants.NUM_CHILDREN_PER_TEAM] = new Frames.ChildState(28 - 2 * i, 28, 10);
+        }
+        return children;
+    }
+
+    // places items at random spaces and their mirror images
+    private static void scatter(int[][] field, Random random, int count, int[] types) {
+        for (int k = 0; k < count; k++) {
+            int x = random.nextInt(Constants.FIELD_DIMENSION);
+            int y = random.nextInt(Constants.FIELD_DIMENSION);
+            int type = types[random.nextInt(types.length)];
+            field[x][y] = type;
+            field[Constants.FIELD_DIMENSION - 1 - x][Constants.FIELD_DIMENSION - 1 - y] = type;
+        }
+    }
+
+    private static void clearAround(int[][] field, Frames.ChildState[] children) {
+        for (Frames.ChildState child : children) {
+            for (int x = Math.max(0, child.x - 1); x <= Math.min(Constants.FIELD_DIMENSION - 1, child.x + 1); x++) {
+                for (int y = Math.max(0, child.y - 1); y <= Math.min(Constants.FIELD_DIMENSION - 1, child.y + 1); y++) {
+                    field[x][y] = Constants.EMPTY;
+                }
+            }
+        }
+    }
+}
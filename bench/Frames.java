@@ -0,0 +1,116 @@
+/**
+ * Writes game states in the text format the game engine sends each turn.
+ */
+final class Frames {
+
+    /**
+     * What the game engine reports about one child.
+     */
+    static final class ChildState {
+        int x = -1;
+        int y = -1;
+        boolean standing = true;
+        boolean defending = false;
+        int holding = Constants.NOTHING;
+        int paintballs = 0;
+
+        ChildState(int x, int y, int paintballs) {
+            this.x = x;
+            this.y = y;
+            this.paintballs = paintballs;
+        }
+
+        ChildState(ChildState other) {
+            x = other.x;
+            y = other.y;
+            standing = other.standing;
+            defending = other.defending;
+            holding = other.holding;
+            paintballs = other.paintballs;
+        }
+
+        boolean isVisible() {
+            return x >= 0;
+        }
+    }
+
+    /**
+     * Appends one turn to a frame stream.
+     *
+     * @param out where the turn is written
+     * @param turn the turn number
+     * @param redScore the red player's score
+     * @param blueScore the blue player's score
+     * @param field the field as the player should see it
+     * @param children all eight children, red first; children that cannot be
+     * seen have negative coordinates
+     */
+    static void appendTurn(StringBuilder out, int turn, int redScore, int blueScore, int[][] field, ChildState[] children) {
+        out.append(turn).append('\n');
+        out.append(redScore).append(' ').append(blueScore).append('\n');
+        for (int i = 0; i < Constants.FIELD_DIMENSION; i++) {
+            for (int j = 0; j < Constants.FIELD_DIMENSION; j++) {
+                if (j > 0) {
+                    out.append(' ');
+                }
+                int type = field[i][j];
+                if (type < 0) {
+                    out.append('P').append(-type);
+                } else {
+                    out.append(symbol(type));
+                }
+            }
+            out.append('\n');
+        }
+        for (ChildState child : children) {
+            if (!child.isVisible()) {
+                out.append("*\n");
+            } else {
+                out.append(child.x).append(' ').append(child.y)
+                        .append(child.standing ? " S" : " C")
+                        .append(child.defending ? " D " : " U ")
+                        .append((char) ('a' + child.holding)).append(' ')
+                        .append(child.paintballs).append('\n');
+            }
+        }
+    }
+
+    /**
+     * Appends the marker the game engine sends when the game is over.
+     *
+     * @param out where the marker is written
+     */
+    static void appendEnd(StringBuilder out) {
+        out.append("-1\n");
+    }
+
+    static char symbol(int type) {
+        switch (type) {
+            case Constants.EMPTY:
+                return '.';
+            case Constants.TREE:
+                return 'T';
+            case Constants.LOW_WALL:
+                return 'V';
+            case Constants.HIGH_WALL:
+                return 'W';
+            case Constants.RED_FLAG:
+                return 'R';
+            case Constants.BLUE_FLAG:
+                return 'B';
+            case Constants.ADAPTER:
+                return 'A';
+            case Constants.SHIELD:
+                return 'S';
+            case Constants.BASIC_LAUNCHER:
+                return 'L';
+            case Constants.RAPID_FIRE_LAUNCHER:
+                return 'F';
+            default:
+                return '*';
+        }
+    }
+
+    private Frames() {
+    }
+}
@@ -0,0 +1,429 @@
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * One game between two copies of the player, refereed without the game
+ * engine.
+ *
+ * Only the rules the player relies on are modelled: moves up to the child's
+ * step distance along an open straight line, sight of radius 8 around each
+ * child (as Field.canEnemySee assumes), picking up items and paintballs from
+ * an adjacent space, launches that follow the same flight as ShotSolver,
+ * dropping paintballs and planting flags. Any child can launch one paintball
+ * at a time, as the player assumes, and a rapid fire launcher launches three.
+ * A hit scores a point for the shooter's team and has no other effect. Both
+ * players see themselves as red: blue's view of the field is turned around
+ * and its flags swapped.
+ */
+final class Match {
+
+    // a space is seen if it is closer than this to one of the team's children
+    private static final double SIGHT_RADIUS = Math.sqrt(63);
+
+    private static final int PLANT_COST = 25;
+    private static final int RAPID_FIRE_BALLS = 3;
+
+    private static final int LAST = Constants.FIELD_DIMENSION - 1;
+
+    /**
+     * The outcome of a game.
+     */
+    static final class Result {
+        final int[] scores;
+        final int[] flags;
+
+        // how long each decision took, in nanoseconds, both teams together
+        final long[] latencies;
+
+        Result(int[] scores, int[] flags, long[] latencies) {
+            this.scores = scores;
+            this.flags = flags;
+            this.latencies = latencies;
+        }
+    }
+
+    // the true state of the game, in red's orientation
+    private final int[][] field;
+    private final Frames.ChildState[] children;
+    private final int[] scores = new int[2];
+    private final int[] flags = new int[2];
+
+    private final int turns;
+    private final Side red;
+    private final Side blue;
+    private final long[] latencies;
+
+    // records red's turns, as PaintballPlayer does outside tournament mode
+    private TurnRecorder recorder;
+
+    Match(Fixture start, int turns) {
+        this.turns = turns;
+        field = Field.copyField(start.field);
+        children = new Frames.ChildState[start.children.length];
+        for (int i = 0; i < children.length; i++) {
+            children[i] = new Frames.ChildState(start.children[i]);
+        }
+        red = new Side(Constants.RED);
+        blue = new Side(Constants.BLUE);
+        latencies = new long[2 * turns];
+    }
+
+    /**
+     * Records every turn as red sees it, and red's actions, while playing.
+     *
+     * @param recorder where the turns are recorded
+     */
+    void record(TurnRecorder recorder) {
+        this.recorder = recorder;
+        red.scheduler.setReproducible(true);
+    }
+
+    Result play() throws IOException {
+        Action[] redActions = new Action[Constants.NUM_CHILDREN_PER_TEAM];
+        Action[] blueActions = new Action[Constants.NUM_CHILDREN_PER_TEAM];
+        for (int turn = 0; turn < turns; turn++) {
+            System.arraycopy(red.decide(turn), 0, redActions, 0, redActions.length);
+            latencies[2 * turn] = red.latency;
+            System.arraycopy(blue.decide(turn), 0, blueActions, 0, blueActions.length);
+            latencies[2 * turn + 1] = blue.latency;
+
+            for (int i = 0; i < Constants.NUM_CHILDREN_PER_TEAM; i++) {
+                apply(i, redActions[i], false);
+                apply(i + Constants.NUM_CHILDREN_PER_TEAM, blueActions[i], true);
+            }
+        }
+        return new Result(scores, flags, latencies);
+    }
+
+    private void apply(int index, Action action, boolean mirrored) {
+        int[] operands = new int[action.operandCount()];
+        for (int i = 0; i < operands.length; i++) {
+            operands[i] = action.operand(i);
+        }
+        if (mirrored) {
+            // every action names spaces as leading x y pairs; drop adds a count
+            int coordinates = action.getOpcode() == Action.Opcode.DROP ? 2 : operands.length;
+            for (int i = 0; i < coordinates; i++) {
+                operands[i] = LAST - operands[i];
+            }
+        }
+
+        Frames.ChildState child = children[index];
+        int team = index < Constants.NUM_CHILDREN_PER_TEAM ? Constants.RED : Constants.BLUE;
+        switch (action.getOpcode()) {
+            case MOVE:
+                move(child, operands[0], operands[1]);
+                break;
+            case PICKUP:
+                pickup(child, operands[0], operands[1]);
+                break;
+            case LAUNCH:
+                launch(child, team, operands);
+                break;
+            case PLANT:
+                plant(child, team, operands[0], operands[1]);
+                break;
+            case DROP:
+                drop(child, operands[0], operands[1], operands[2]);
+                break;
+            case CROUCH:
+                child.standing = false;
+                break;
+            case STAND:
+                child.standing = true;
+                break;
+            case DEFEND:
+                child.defending = hasShield(child.holding);
+                break;
+            case UNDEFEND:
+                child.defending = false;
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void move(Frames.ChildState child, int x, int y) {
+        int dx = x - child.x;
+        int dy = y - child.y;
+        int step = child.standing ? child.defending ? 2 : 3 : 1;
+        if (dx * dx + dy * dy > step * step || !Rays.covers(dx, dy)) {
+            return;
+        }
+        int[] ray = Rays.ray(dx, dy);
+        for (int i = 1; i < ray.length; i++) {
+            int stepX = child.x + Rays.offsetX(ray[i]);
+            int stepY = child.y + Rays.offsetY(ray[i]);
+            if (!onField(stepX, stepY) || field[stepX][stepY] != Constants.EMPTY || childAt(stepX, stepY) != null) {
+                return;
+            }
+        }
+        child.x = x;
+        child.y = y;
+    }
+
+    private void pickup(Frames.ChildState child, int x, int y) {
+        if (!adjacent(child, x, y)) {
+            return;
+        }
+        int type = field[x][y];
+        boolean shield = hasShield(child.holding);
+        int launcher = launcher(child.holding);
+        if (type < 0) {
+            child.paintballs -= type;
+        } else if (type == Constants.SHIELD && !shield) {
+            shield = true;
+        } else if (type == Constants.BASIC_LAUNCHER && launcher == Constants.NOTHING) {
+            launcher = Constants.ONE_BASIC_LAUNCHER;
+        } else if (type == Constants.RAPID_FIRE_LAUNCHER && launcher == Constants.NOTHING) {
+            launcher = Constants.ONE_RAPID_FIRE_LAUNCHER;
+        } else if (type == Constants.ADAPTER) {
+            // an adapter turns a basic launcher into a rapid fire one
+            if (launcher == Constants.ONE_BASIC_LAUNCHER) {
+                launcher = Constants.ONE_RAPID_FIRE_LAUNCHER;
+            }
+        } else {
+            return;
+        }
+        field[x][y] = Constants.EMPTY;
+        child.holding = holding(shield, launcher);
+    }
+
+    private void launch(Frames.ChildState child, int team, int[] operands) {
+        if (launcher(child.holding) != Constants.ONE_RAPID_FIRE_LAUNCHER) {
+            fire(child, team, operands[0], operands[1]);
+        } else if (operands.length == 4) {
+            // a rapid fire spread covers both ends and the middle
+            fire(child, team, operands[0], operands[1]);
+            fire(child, team, (operands[0] + operands[2]) / 2, (operands[1] + operands[3]) / 2);
+            fire(child, team, operands[2], operands[3]);
+        } else {
+            for (int i = 0; i < RAPID_FIRE_BALLS; i++) {
+                fire(child, team, operands[0], operands[1]);
+            }
+        }
+    }
+
+    private void fire(Frames.ChildState child, int team, int aimX, int aimY) {
+        int dx = aimX - child.x;
+        int dy = aimY - child.y;
+        if (child.paintballs == 0 || (dx == 0 && dy == 0)
+                || dx * dx + dy * dy > Constants.MAX_LAUNCH_DISTANCE * Constants.MAX_LAUNCH_DISTANCE) {
+            return;
+        }
+        child.paintballs--;
+        int[] ray = Rays.ray(dx, dy);
+        double[] heights = Rays.flightHeights(ray.length - 1);
+        for (int i = 1; i < ray.length; i++) {
+            int x = child.x + Rays.offsetX(ray[i]);
+            int y = child.y + Rays.offsetY(ray[i]);
+            if (!onField(x, y)) {
+                return;
+            }
+            Frames.ChildState hit = childAt(x, y);
+            if (heights[i] <= 0) {
+                // the paintball lands here and stays if there is room for it
+                if (hit == null && field[x][y] <= Constants.EMPTY) {
+                    field[x][y]--;
+                }
+                return;
+            }
+            if (heights[i] <= height(x, y, hit)) {
+                if (hit != null && !(hit.defending && hasShield(hit.holding)) && teamOf(hit) != team) {
+                    scores[team]++;
+                }
+                return;
+            }
+        }
+    }
+
+    private void plant(Frames.ChildState child, int team, int x, int y) {
+        if (adjacent(child, x, y) && child.paintballs >= PLANT_COST
+                && field[x][y] == Constants.EMPTY && childAt(x, y) == null) {
+            child.paintballs -= PLANT_COST;
+            field[x][y] = team == Constants.RED ? Constants.RED_FLAG : Constants.BLUE_FLAG;
+            flags[team]++;
+        }
+    }
+
+    private void drop(Frames.ChildState child, int x, int y, int count) {
+        if (adjacent(child, x, y) && count > 0 && count <= child.paintballs
+                && field[x][y] <= Constants.EMPTY && childAt(x, y) == null) {
+            child.paintballs -= count;
+            field[x][y] -= count;
+        }
+    }
+
+    private int height(int x, int y, Frames.ChildState child) {
+        if (child != null) {
+            return child.standing ? 9 : 3;
+        }
+        switch (field[x][y]) {
+            case Constants.TREE:
+                return 20;
+            case Constants.LOW_WALL:
+                return 3;
+            case Constants.HIGH_WALL:
+            case Constants.RED_FLAG:
+            case Constants.BLUE_FLAG:
+                return 7;
+            default:
+                return 0;
+        }
+    }
+
+    private Frames.ChildState childAt(int x, int y) {
+        for (Frames.ChildState child : children) {
+            if (child.x == x && child.y == y) {
+                return child;
+            }
+        }
+        return null;
+    }
+
+    private int teamOf(Frames.ChildState child) {
+        for (int i = 0; i < children.length; i++) {
+            if (children[i] == child) {
+                return i < Constants.NUM_CHILDREN_PER_TEAM ? Constants.RED : Constants.BLUE;
+            }
+        }
+        throw new IllegalArgumentException("not a child in this match");
+    }
+
+    private static boolean adjacent(Frames.ChildState child, int x, int y) {
+        return onField(x, y) && Math.abs(x - child.x) <= 1 && Math.abs(y - child.y) <= 1
+                && (x != child.x || y != child.y);
+    }
+
+    private static boolean onField(int x, int y) {
+        return x >= 0 && x <= LAST && y >= 0 && y <= LAST;
+    }
+
+    private static boolean hasShield(int holding) {
+        return holding == Constants.ONE_SHIELD
+                || holding == Constants.SHIELD_AND_BASIC_LAUNCHER
+                || holding == Constants.SHIELD_AND_RAPID_FIRE_LAUNCHER;
+    }
+
+    private static int holding(boolean shield, int launcher) {
+        if (!shield) {
+            return launcher;
+        }
+        switch (launcher) {
+            case Constants.ONE_BASIC_LAUNCHER:
+                return Constants.SHIELD_AND_BASIC_LAUNCHER;
+            case Constants.ONE_RAPID_FIRE_LAUNCHER:
+                return Constants.SHIELD_AND_RAPID_FIRE_LAUNCHER;
+            default:
+                return Constants.ONE_SHIELD;
+        }
+    }
+
+    private static int launcher(int holding) {
+        switch (holding) {
+            case Constants.ONE_BASIC_LAUNCHER:
+            case Constants.SHIELD_AND_BASIC_LAUNCHER:
+                return Constants.ONE_BASIC_LAUNCHER;
+            case Constants.ONE_RAPID_FIRE_LAUNCHER:
+            case Constants.SHIELD_AND_RAPID_FIRE_LAUNCHER:
+                return Constants.ONE_RAPID_FIRE_LAUNCHER;
+            default:
+                return Constants.NOTHING;
+        }
+    }
+
+    /**
+     * One team's player: its own field model, children and scheduler, fed the
+     * game as the engine would show it to that team.
+     */
+    private final class Side {
+
+        private final int team;
+        private final Child[] own = new Child[Constants.NUM_CHILDREN_PER_TEAM * 2];
+        private final int[][] view = new int[Constants.FIELD_DIMENSION][Constants.FIELD_DIMENSION];
+        private final boolean[][] seen = new boolean[Constants.FIELD_DIMENSION][Constants.FIELD_DIMENSION];
+        private final Field model;
+        private final DecisionScheduler scheduler;
+
+        // how long the last decision took, in nanoseconds
+        long latency;
+
+        Side(int team) {
+            this.team = team;
+            model = new Field(new int[Constants.FIELD_DIMENSION][Constants.FIELD_DIMENSION], own);
+            own[0] = new Scout(Constants.RED, model);
+            for (int i = 1; i < own.length; i++) {
+                own[i] = new Fighter(i < Constants.NUM_CHILDREN_PER_TEAM ? Constants.RED : Constants.BLUE, model);
+            }
+            scheduler = new DecisionScheduler(own, model);
+        }
+
+        Action[] decide(int turn) throws IOException {
+            look();
+            for (int i = 0; i < own.length; i++) {
+                // this team's children always come first
+                Frames.ChildState state = children[team == Constants.RED ? i : (i + Constants.NUM_CHILDREN_PER_TEAM) % own.length];
+                Child child = own[i];
+                if (i < Constants.NUM_CHILDREN_PER_TEAM || seen[state.x][state.y]) {
+                    child.setPosition(team == Constants.RED ? Point.of(state.x, state.y) : Point.of(LAST - state.x, LAST - state.y));
+                    child.setIsStanding(state.standing);
+                    child.setIsDefending(state.defending);
+                    child.setHolding(state.holding);
+                    child.setPaintballCount(state.paintballs);
+                } else {
+                    child.setPosition(Point.OFF_FIELD);
+                }
+            }
+            if (recording()) {
+                recorder.recordTurn(turn, scores, view, own);
+            }
+
+            Route.setField(model);
+            long begin = System.nanoTime();
+            TurnDeadline.start(Constants.TURN_TIME_BUDGET_MILLIS);
+            model.update(view);
+            Action[] actions = scheduler.decide();
+            latency = System.nanoTime() - begin;
+            if (recording()) {
+                recorder.recordActions(actions);
+            }
+            return actions;
+        }
+
+        private boolean recording() {
+            return recorder != null && team == Constants.RED;
+        }
+
+        // works out what this team can see and fills in its view of the field
+        private void look() {
+            for (boolean[] column : seen) {
+                Arrays.fill(column, false);
+            }
+            Stencil sight = Stencil.of(SIGHT_RADIUS);
+            for (int i = 0; i < Constants.NUM_CHILDREN_PER_TEAM; i++) {
+                Frames.ChildState child = children[team * Constants.NUM_CHILDREN_PER_TEAM + i];
+                seen[child.x][child.y] = true;
+                for (int k = 0; k < sight.size(); k++) {
+                    int cell = sight.neighbor(child.x, child.y, k);
+                    if (cell >= 0) {
+                        seen[Point.x(cell)][Point.y(cell)] = true;
+                    }
+                }
+            }
+            for (int x = 0; x <= LAST; x++) {
+                for (int y = 0; y <= LAST; y++) {
+                    int trueX = team == Constants.RED ? x : LAST - x;
+                    int trueY = team == Constants.RED ? y : LAST - y;
+                    view[x][y] = seen[trueX][trueY] ? orient(field[trueX][trueY]) : Constants.UNKNOWN;
+                }
+            }
+        }
+
+        private int orient(int type) {
+            if (team == Constants.RED) {
+                return type;
+            }
+            return type == Constants.RED_FLAG ? Constants.BLUE_FLAG : type == Constants.BLUE_FLAG ? Constants.RED_FLAG : type;
+        }
+    }
+}
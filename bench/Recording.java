@@ -0,0 +1,108 @@
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A game recorded by TurnRecorder, read back in full.
+ */
+final class Recording {
+
+    final List<Integer> turnNumbers = new ArrayList<>();
+    final List<int[]> scores = new ArrayList<>();
+    final List<int[][]> fields = new ArrayList<>();
+    final List<Frames.ChildState[]> children = new ArrayList<>();
+    // the commands sent for each turn, one per line
+    final List<String> actions = new ArrayList<>();
+
+    /**
+     * Reads a recording.
+     *
+     * @param path the recording, such as sp-N.rec
+     * @return every turn in it
+     * @throws IOException if it cannot be read or is not a recording
+     */
+    static Recording read(String path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(path)))) {
+            Recording recording = new Recording();
+            recording.readTurns(in);
+            return recording;
+        }
+    }
+
+    private Recording() {
+    }
+
+    int size() {
+        return turnNumbers.size();
+    }
+
+    /**
+     * @param turn which recorded turn, from 0
+     * @return the turn as the game engine sent it
+     */
+    byte[] frame(int turn) {
+        StringBuilder out = new StringBuilder(2200);
+        Frames.appendTurn(out, turnNumbers.get(turn), scores.get(turn)[Constants.RED], scores.get(turn)[Constants.BLUE],
+                fields.get(turn), children.get(turn));
+        return out.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    // a recording cut off between turns, as when the player is killed at the
+    // end of a game, ends there
+    private static int nextTurn(DataInputStream in) throws IOException {
+        in.mark(1);
+        if (in.read() < 0) {
+            return -1;
+        }
+        in.reset();
+        return in.readInt();
+    }
+
+    private void readTurns(DataInputStream in) throws IOException {
+        if (in.readInt() != TurnRecorder.MAGIC) {
+            throw new IOException("not a recorded game");
+        }
+        for (int turn = nextTurn(in); turn >= 0; turn = nextTurn(in)) {
+            turnNumbers.add(turn);
+            int[] score = new int[2];
+            score[Constants.RED] = in.readInt();
+            score[Constants.BLUE] = in.readInt();
+            scores.add(score);
+            int[][] field = new int[Constants.FIELD_DIMENSION][Constants.FIELD_DIMENSION];
+            for (int[] column : field) {
+                for (int j = 0; j < column.length; j++) {
+                    byte cell = in.readByte();
+                    column[j] = cell == Byte.MIN_VALUE ? in.readInt() : cell;
+                }
+            }
+            fields.add(field);
+            Frames.ChildState[] states = new Frames.ChildState[2 * Constants.NUM_CHILDREN_PER_TEAM];
+            for (int i = 0; i < states.length; i++) {
+                int x = in.readByte();
+                if (x < 0) {
+                    states[i] = new Frames.ChildState(-1, -1, 0);
+                    continue;
+                }
+                int y = in.readByte();
+                int state = in.readByte();
+                int holding = in.readByte();
+                states[i] = new Frames.ChildState(x, y, in.readShort());
+                states[i].standing = (state & TurnRecorder.STANDING) != 0;
+                states[i].defending = (state & TurnRecorder.DEFENDING) != 0;
+                states[i].holding = holding;
+            }
+            children.add(states);
+
+            StringBuilder chosen = new StringBuilder();
+            int count = in.readByte();
+            for (int i = 0; i < count; i++) {
+                chosen.append(in.readUTF()).append('\n');
+            }
+            actions.add(chosen.toString());
+        }
+    }
+}
@@ -0,0 +1,140 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Replays a game recorded by TurnRecorder through the player and reports how
+ * long each turn took and where the actions differ from the recorded ones.
+ *
+ * Usage: java -cp out Replay sp-N.rec [quiet]
+ *
+ * A turn's time runs from the last of its input being handed to the player
+ * until its actions are flushed. The player's random choices are seeded from
+ * the turn, as they were when recording, but children still give up early
+ * when short of time, so a few turns may diverge.
+ */
+public class Replay {
+
+    private static final int DIVERGENCES_SHOWN = 10;
+
+    public static void main(String[] args) throws IOException {
+        Recording recording = Recording.read(args[0]);
+        List<Integer> turnNumbers = recording.turnNumbers;
+        List<String> recorded = recording.actions;
+        List<byte[]> frames = new ArrayList<>();
+        for (int i = 0; i < recording.size(); i++) {
+            frames.add(recording.frame(i));
+        }
+        StringBuilder end = new StringBuilder();
+        Frames.appendEnd(end);
+        frames.add(end.toString().getBytes(StandardCharsets.US_ASCII));
+        boolean quiet = args.length > 1 && args[1].equals("quiet");
+
+        Feed feed = new Feed(frames);
+        PaintballPlayer player = new PaintballPlayer();
+        player.setReproducible(true);
+        player.run(feed, feed.actions);
+
+        int turns = feed.actions.turns.size();
+        long[] sorted = new long[turns];
+        int diverged = 0;
+        StringBuilder divergences = new StringBuilder();
+        for (int i = 0; i < turns; i++) {
+            long nanos = feed.actions.flushedAt.get(i) - feed.deliveredAt[i];
+            sorted[i] = nanos;
+            String replayed = feed.actions.turns.get(i);
+            boolean same = replayed.equals(recorded.get(i));
+            if (!same && diverged++ < DIVERGENCES_SHOWN) {
+                divergences.append(String.format("turn %d%n  recorded: %s%n  replayed: %s%n",
+                        turnNumbers.get(i), recorded.get(i).replace('\n', ';'), replayed.replace('\n', ';')));
+            }
+            if (!quiet) {
+                System.out.format(Locale.ROOT, "turn %4d %9.3f ms%s%n", turnNumbers.get(i), nanos / 1e6, same ? "" : " diverged");
+            }
+        }
+
+        Arrays.sort(sorted);
+        System.out.format(Locale.ROOT, "%d turns replayed, %d diverged%n", turns, diverged);
+        if (turns > 0) {
+            System.out.format(Locale.ROOT, "turn ms: p50 %.3f, p90 %.3f, p99 %.3f, max %.3f%n",
+                    sorted[turns / 2] / 1e6, sorted[turns * 9 / 10] / 1e6, sorted[turns * 99 / 100] / 1e6, sorted[turns - 1] / 1e6);
+        }
+        System.out.print(divergences);
+    }
+
+    /**
+     * Hands the player one turn at a time, noting when each turn has been
+     * given out in full.
+     */
+    private static final class Feed extends InputStream {
+
+        private final List<byte[]> frames;
+        private final long[] deliveredAt;
+        private final Actions actions = new Actions();
+        private int frame = 0;
+        private int position = 0;
+
+        Feed(List<byte[]> frames) {
+            this.frames = frames;
+            deliveredAt = new long[frames.size()];
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0];
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (frame < frames.size() && position == frames.get(frame).length) {
+                frame++;
+                position = 0;
+            }
+            if (frame == frames.size()) {
+                return -1;
+            }
+            byte[] bytes = frames.get(frame);
+            int count = Math.min(length, bytes.length - position);
+            System.arraycopy(bytes, position, buffer, offset, count);
+            position += count;
+            if (position == bytes.length) {
+                deliveredAt[frame] = System.nanoTime();
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Collects the actions the player sends, one turn per flush.
+     */
+    private static final class Actions extends OutputStream {
+
+        private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+        private final List<String> turns = new ArrayList<>();
+        private final List<Long> flushedAt = new ArrayList<>();
+
+        @Override
+        public void write(int b) {
+            pending.write(b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            pending.write(bytes, offset, length);
+        }
+
+        @Override
+        public void flush() {
+            flushedAt.add(System.nanoTime());
+            turns.add(new String(pending.toByteArray(), StandardCharsets.US_ASCII));
+            pending.reset();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Plays many games of the player against itself without the game engine and
+ * reports how long its turns take.
+ *
+ * Usage: java -cp out Simulator [matches] [turns] [jobs]
+ *    or: java -cp out Simulator record FILE [turns] [seed]
+ *
+ * The second form plays a single game and records it from red's side, the
+ * way PaintballPlayer records its games, for Replay and Benchmarks.
+ *
+ * The player keeps its field in statics (Route, TurnDeadline), so a JVM can
+ * only play one game at a time. With more than one job, the games are split
+ * across that many worker JVMs, each given its share of the processors.
+ */
+public class Simulator {
+
+    private static final String WORKER = "--worker";
+    private static final String RECORD = "record";
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length > 0 && args[0].equals(WORKER)) {
+            work(Long.parseLong(args[1]), Integer.parseInt(args[2]), Integer.parseInt(args[3]));
+            return;
+        }
+        if (args.length > 0 && args[0].equals(RECORD)) {
+            int turns = args.length > 2 ? Integer.parseInt(args[2]) : 300;
+            long seed = args.length > 3 ? Long.parseLong(args[3]) : 0;
+            TurnRecorder recorder = new TurnRecorder(new FileOutputStream(args[1]));
+            Match match = new Match(Fixture.startOfGame(seed), turns);
+            match.record(recorder);
+            match.play();
+            recorder.close();
+            return;
+        }
+
+        int matches = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int turns = args.length > 1 ? Integer.parseInt(args[1]) : 300;
+        int processors = Runtime.getRuntime().availableProcessors();
+        int jobs = Math.min(matches, args.length > 2 ? Integer.parseInt(args[2]) : processors);
+
+        long begin = System.nanoTime();
+        List<Process> workers = new ArrayList<>(jobs);
+        int first = 0;
+        for (int job = 0; job < jobs; job++) {
+            int count = (matches - first) / (jobs - job);
+            workers.add(new ProcessBuilder(
+                    new File(System.getProperty("java.home"), "bin/java").getPath(),
+                    "-XX:ActiveProcessorCount=" + Math.max(1, processors / jobs),
+                    "-cp", System.getProperty("java.class.path"),
+                    Simulator.class.getName(), WORKER, Integer.toString(first), Integer.toString(count), Integer.toString(turns))
+                    .redirectError(ProcessBuilder.Redirect.INHERIT)
+                    .start());
+            first += count;
+        }
+
+        long[] latencies = new long[2 * turns * matches];
+        int latencyCount = 0;
+        int[] wins = new int[3];
+        for (Process worker : workers) {
+            BufferedReader results = new BufferedReader(new InputStreamReader(worker.getInputStream(), StandardCharsets.US_ASCII));
+            for (String line = results.readLine(); line != null; line = results.readLine()) {
+                // seed red-score blue-score red-flags blue-flags latencies...
+                String[] words = line.split(" ");
+                int red = Integer.parseInt(words[1]);
+                int blue = Integer.parseInt(words[2]);
+                System.out.format("match %s: %d-%d, flags %s-%s%n", words[0], red, blue, words[3], words[4]);
+                wins[red > blue ? 0 : red < blue ? 1 : 2]++;
+                for (int i = 5; i < words.length; i++) {
+                    latencies[latencyCount++] = Long.parseLong(words[i]);
+                }
+            }
+            if (worker.waitFor() != 0) {
+                throw new IOException("simulator worker failed with status " + worker.exitValue());
+            }
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+
+        Arrays.sort(latencies, 0, latencyCount);
+        System.out.format(Locale.ROOT, "%d matches, %d turns each, %d jobs: red %d, blue %d, drawn %d%n",
+                matches, turns, jobs, wins[0], wins[1], wins[2]);
+        System.out.format(Locale.ROOT, "%.1f s, %.0f turns/s%n", seconds, matches * turns / seconds);
+        if (latencyCount > 0) {
+            System.out.format(Locale.ROOT, "turn latency us: p50 %d, p90 %d, p99 %d, p99.9 %d, max %d%n",
+                    micros(latencies, latencyCount, 0.5), micros(latencies, latencyCount, 0.9),
+                    micros(latencies, latencyCount, 0.99), micros(latencies, latencyCount, 0.999),
+                    latencies[latencyCount - 1] / 1000);
+        }
+    }
+
+    // plays a range of games and writes one line per game
+    private static void work(long firstSeed, int count, int turns) throws IOException {
+        StringBuilder line = new StringBuilder();
+        for (long seed = firstSeed; seed < firstSeed + count; seed++) {
+            Match.Result result = new Match(Fixture.startOfGame(seed), turns).play();
+            line.setLength(0);
+            line.append(seed)
+                    .append(' ').append(result.scores[Constants.RED]).append(' ').append(result.scores[Constants.BLUE])
+                    .append(' ').append(result.flags[Constants.RED]).append(' ').append(result.flags[Constants.BLUE]);
+            for (long latency : result.latencies) {
+                line.append(' ').append(latency);
+            }
+            System.out.println(line);
+        }
+        System.out.flush();
+    }
+
+    private static long micros(long[] sorted, int count, double quantile) {
+        return sorted[Math.min(count - 1, (int) (quantile * count))] / 1000;
+    }
+}
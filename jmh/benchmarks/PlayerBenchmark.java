@@ -0,0 +1,125 @@
+package benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Times the player's hot paths on each fixture.
+ *
+ * The player lives in the default package, which JMH cannot generate code
+ * for, so the operations are set up by the Benchmarks class in bench/ and
+ * called through Callable. Each benchmark runs in its own fork, so every
+ * call site sees a single operation.
+ *
+ * Usage: gradle jmh [-Pjmh="JMH options"]
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+public class PlayerBenchmark {
+
+    /**
+     * The game state: a generated field, bench/recorded.rec, or the path of
+     * any other recording.
+     */
+    @Param({"empty", "dense-walls", "late-game", "recorded"})
+    public String fixture;
+
+    private Callable<Object> firstMove;
+    private Callable<Object> shootAt;
+    private Callable<Object> aimAt;
+    private Callable<Object> pointsWithin;
+    private Callable<Object> canEnemySee;
+    private Callable<Object> update;
+    private Callable<Object> scoutChooseAction;
+    private Callable<Object> fighterChooseAction;
+    private Callable<Object> playerRun;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        Map<String, Callable<Object>> operations = (Map<String, Callable<Object>>) Class.forName("Benchmarks")
+                .getMethod("operations", String.class).invoke(null, fixture);
+        firstMove = operations.get("Route.firstMove");
+        shootAt = operations.get("Route.shootAt");
+        aimAt = operations.get("ShotSolver.aimAt");
+        pointsWithin = operations.get("Point.pointsWithin");
+        canEnemySee = operations.get("Field.canEnemySee");
+        update = operations.get("Field.update");
+        scoutChooseAction = operations.get("Scout.chooseAction");
+        fighterChooseAction = operations.get("Fighter.chooseAction");
+        playerRun = operations.get("PaintballPlayer.run");
+    }
+
+    @Benchmark
+    public Object routeFirstMove() throws Exception {
+        return firstMove.call();
+    }
+
+    /**
+     * Aims with the shot solver kept by Route, so its hit maps are warm.
+     */
+    @Benchmark
+    public Object routeShootAt() throws Exception {
+        return shootAt.call();
+    }
+
+    /**
+     * Aims with a new shot solver every time, building its hit maps.
+     */
+    @Benchmark
+    public Object shotSolverAimAtCold() throws Exception {
+        return aimAt.call();
+    }
+
+    @Benchmark
+    public Object pointPointsWithin() throws Exception {
+        return pointsWithin.call();
+    }
+
+    @Benchmark
+    public Object fieldCanEnemySee() throws Exception {
+        return canEnemySee.call();
+    }
+
+    @Benchmark
+    public Object fieldUpdate() throws Exception {
+        return update.call();
+    }
+
+    @Benchmark
+    public Object scoutChooseAction() throws Exception {
+        return scoutChooseAction.call();
+    }
+
+    @Benchmark
+    public Object fighterChooseAction() throws Exception {
+        return fighterChooseAction.call();
+    }
+
+    /**
+     * Plays 20 turns through the whole turn loop: the recorded turns for a
+     * recording, the same turn repeated for a generated field.
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Object paintballPlayerRun() throws Exception {
+        return playerRun.call();
+    }
+}
@@ -0,0 +1,53 @@
+import java.util.Map;
+
+/**
+ * Checks that a child ranks going after an enemy it can see, scored by the
+ * moves to the space it would stand on rather than the enemy's own space,
+ * which no child can reach.
+ *
+ * Usage: java -cp out ChildRankingTest
+ */
+public class ChildRankingTest {
+
+    public static void main(String[] args) {
+        int[][] grid = new int[Constants.FIELD_DIMENSION][Constants.FIELD_DIMENSION];
+        // a high wall between the two, so the fighter cannot launch from
+        // where it is and has to close in
+        for (int y = 5; y <= 15; y++) {
+            grid[10][y] = Constants.HIGH_WALL;
+        }
+        Child[] children = new Child[2 * Constants.NUM_CHILDREN_PER_TEAM];
+        Field field = new Field(Field.copyField(grid), children);
+        Route.setField(field);
+        for (int i = 0; i < children.length; i++) {
+            children[i] = new Fighter(i < Constants.NUM_CHILDREN_PER_TEAM ? Constants.RED : Constants.BLUE, field);
+            children[i].setPosition(Point.OFF_FIELD);
+            children[i].setPaintballCount(10);
+        }
+        Child fighter = children[0];
+        fighter.setPosition(Point.of(6, 10));
+        children[1].setPosition(Point.of(0, 0));
+        children[2].setPosition(Point.of(0, 30));
+        children[3].setPosition(Point.of(1, 30));
+        Point enemy = Point.of(14, 10);
+        children[Constants.NUM_CHILDREN_PER_TEAM].setPosition(enemy);
+
+        TurnDeadline.start(TurnDeadline.NO_LIMIT_MILLIS);
+        field.update(grid);
+
+        Map<Objective, Double> rankings = fighter.rankObjectives();
+        for (Map.Entry<Objective, Double> entry : rankings.entrySet()) {
+            Objective objective = entry.getKey();
+            Action action = objective.getAction();
+            if (action.getOpcode() == Action.Opcode.LAUNCH && action.getTarget().equals(enemy)
+                    && !objective.getPosition().equals(fighter.getPosition())) {
+                if (objective.getPosition().distance(enemy) > 1.5) {
+                    throw new AssertionError("approach stands at " + objective.getPosition() + ", not next to " + enemy);
+                }
+                System.out.println("ChildRankingTest: approach ranked " + entry.getValue());
+                return;
+            }
+        }
+        throw new AssertionError("no approach to the enemy was ranked, only " + rankings.keySet());
+    }
+}
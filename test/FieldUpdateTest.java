@@ -0,0 +1,133 @@
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Checks Field's incremental update against the full update it replaced, on
+ * a recorded game, a hand-made sequence of turns and turns where spaces come
+ * and go out of sight at random.
+ *
+ * Usage: java -cp out FieldUpdateTest [game.rec]
+ *
+ * Both updates are given the same turns, and every space of the field must
+ * come out the same after every turn.
+ */
+public class FieldUpdateTest {
+
+    public static void main(String[] args) throws IOException {
+        Recording recording = Recording.read(args.length > 0 ? args[0] : "bench/recorded.rec");
+        int[][][] turns = new int[recording.size()][][];
+        for (int i = 0; i < turns.length; i++) {
+            turns[i] = recording.fields.get(i);
+        }
+        check("recorded game", turns);
+        check("launcher out of sight", launcherOutOfSight());
+        int[][][] random = randomTurns(1306, 300);
+        check("random turns", random);
+        System.out.println("FieldUpdateTest: " + (turns.length + 3 + random.length) + " turns match");
+    }
+
+    // a launcher across from a tree is seen, then goes out of sight; it is
+    // not remembered, and on the turn after it is filled in from the tree
+    private static int[][][] launcherOutOfSight() {
+        int last = Constants.FIELD_DIMENSION - 1;
+        int[][][] turns = new int[3][Constants.FIELD_DIMENSION][Constants.FIELD_DIMENSION];
+        for (int[][] turn : turns) {
+            for (int[] column : turn) {
+                Arrays.fill(column, Constants.UNKNOWN);
+            }
+            turn[last - 3][last - 4] = Constants.TREE;
+        }
+        turns[0][3][4] = Constants.BASIC_LAUNCHER;
+        return turns;
+    }
+
+    // each turn changes a few spaces of the one before to anything at all,
+    // often out of sight
+    private static int[][][] randomTurns(long seed, int count) {
+        Random random = new Random(seed);
+        int[] types = {
+            Constants.EMPTY, Constants.UNKNOWN, Constants.UNKNOWN, Constants.UNKNOWN, Constants.TREE,
+            Constants.LOW_WALL, Constants.HIGH_WALL, Constants.SHIELD, Constants.ADAPTER, Constants.BASIC_LAUNCHER,
+            Constants.RAPID_FIRE_LAUNCHER, Constants.RED_FLAG, Constants.BLUE_FLAG, -3
+        };
+        int[][][] turns = new int[count][][];
+        int[][] previous = new int[Constants.FIELD_DIMENSION][Constants.FIELD_DIMENSION];
+        for (int t = 0; t < count; t++) {
+            int[][] turn = Field.copyField(previous);
+            for (int k = 0; k < 40; k++) {
+                turn[random.nextInt(Constants.FIELD_DIMENSION)][random.nextInt(Constants.FIELD_DIMENSION)]
+                        = types[random.nextInt(types.length)];
+            }
+            turns[t] = turn;
+            previous = turn;
+        }
+        return turns;
+    }
+
+    private static void check(String name, int[][][] turns) {
+        Child[] children = new Child[2 * Constants.NUM_CHILDREN_PER_TEAM];
+        int[][] start = new int[Constants.FIELD_DIMENSION][Constants.FIELD_DIMENSION];
+        Field field = new Field(start, children);
+        for (int i = 0; i < children.length; i++) {
+            children[i] = new Fighter(i < Constants.NUM_CHILDREN_PER_TEAM ? Constants.RED : Constants.BLUE, field);
+            children[i].setPosition(Point.OFF_FIELD);
+        }
+        int[][] stored = Field.copyField(start);
+        for (int t = 0; t < turns.length; t++) {
+            TurnDeadline.start(TurnDeadline.NO_LIMIT_MILLIS);
+            field.update(turns[t]);
+            stored = fullUpdate(turns[t], stored);
+            for (int cell = 0; cell < Constants.NUM_CELLS; cell++) {
+                int expected = stored[Point.x(cell)][Point.y(cell)];
+                if (field.type(cell) != expected) {
+                    throw new AssertionError(name + ", turn " + t + ": " + Point.of(cell) + " is "
+                            + field.type(cell) + " instead of " + expected);
+                }
+            }
+        }
+    }
+
+    // Field.update before it was made incremental
+    private static int[][] fullUpdate(int[][] newField, int[][] storedField) {
+        int[][] field = Field.copyField(newField);
+        for (int i = 0; i < Constants.FIELD_DIMENSION; i++) {
+            for (int j = 0; j < Constants.FIELD_DIMENSION; j++) {
+                if (field[i][j] == Constants.UNKNOWN && isWorthTracking(storedField[i][j])) {
+                    field[i][j] = storedField[i][j];
+                }
+            }
+        }
+        for (int i = 0; i < Constants.FIELD_DIMENSION; i++) {
+            for (int j = 0; j < Constants.FIELD_DIMENSION; j++) {
+                if (field[i][j] == Constants.UNKNOWN && isWorthReflecting(field[30 - i][30 - j])) {
+                    if (storedField[i][j] == Constants.UNKNOWN) {
+                        field[i][j] = field[30 - i][30 - j];
+                    } else if (storedField[i][j] == Constants.EMPTY) {
+                        field[i][j] = Constants.EMPTY;
+                    }
+                }
+            }
+        }
+        return field;
+    }
+
+    private static boolean isWorthTracking(int type) {
+        return type == Constants.ADAPTER
+                || type == Constants.BLUE_FLAG
+                || type == Constants.HIGH_WALL
+                || type == Constants.LOW_WALL
+                || type == Constants.SHIELD
+                || type == Constants.TREE
+                || type < 0;
+    }
+
+    private static boolean isWorthReflecting(int type) {
+        return type == Constants.ADAPTER
+                || type == Constants.HIGH_WALL
+                || type == Constants.LOW_WALL
+                || type == Constants.SHIELD
+                || type == Constants.TREE
+                || type < 0;
+    }
+}
@@ -0,0 +1,72 @@
+/**
+ * Checks that every precomputed ray covers the same spaces, in the same
+ * order, as walking the straight route step by step the way Route used to,
+ * and that Rays.covers is true exactly for the offsets that have a ray.
+ *
+ * Usage: java -cp out RaysTest
+ */
+public class RaysTest {
+
+    public static void main(String[] args) {
+        int checked = 0;
+        int max = Rays.MAX_OFFSET;
+        for (int dx = -max; dx <= max; dx++) {
+            for (int dy = -max; dy <= max; dy++) {
+                if (!Rays.covers(dx, dy)) {
+                    throw new AssertionError("(" + dx + ", " + dy + ") is inside the table but not covered");
+                }
+                int[] ray = Rays.ray(dx, dy);
+                int[][] walked = walk(dx, dy);
+                if (ray.length != walked.length) {
+                    throw new AssertionError("ray (" + dx + ", " + dy + ") has " + ray.length
+                            + " steps, the walk has " + walked.length);
+                }
+                for (int i = 0; i < ray.length; i++) {
+                    if (Rays.offsetX(ray[i]) != walked[i][0] || Rays.offsetY(ray[i]) != walked[i][1]) {
+                        throw new AssertionError("ray (" + dx + ", " + dy + ") differs at step " + i + ": ("
+                                + Rays.offsetX(ray[i]) + ", " + Rays.offsetY(ray[i]) + ") instead of ("
+                                + walked[i][0] + ", " + walked[i][1] + ")");
+                    }
+                }
+                checked++;
+            }
+        }
+        checkBoundary(max);
+        System.out.println("RaysTest: " + checked + " rays match");
+    }
+
+    // offsets one past the table on either axis must not be covered, since
+    // playouts rely on covers() before looking a ray up
+    private static void checkBoundary(int max) {
+        int[][] inside = {{max, 0}, {-max, 0}, {0, max}, {0, -max}, {max, max}, {-max, -max}, {max, -max}};
+        int[][] outside = {
+            {max + 1, 0}, {-max - 1, 0}, {0, max + 1}, {0, -max - 1},
+            {max + 1, max}, {max, -max - 1}, {-max - 1, -max - 1}, {max + 1, max + 1},
+            {Integer.MAX_VALUE, 0}, {0, Integer.MIN_VALUE}
+        };
+        for (int[] offset : inside) {
+            if (!Rays.covers(offset[0], offset[1])) {
+                throw new AssertionError("(" + offset[0] + ", " + offset[1] + ") should be covered");
+            }
+        }
+        for (int[] offset : outside) {
+            if (Rays.covers(offset[0], offset[1])) {
+                throw new AssertionError("(" + offset[0] + ", " + offset[1] + ") is outside the table but covered");
+            }
+        }
+    }
+
+    // the offsets Route.straightRoute used to visit going from (0, 0) to
+    // (dx, dy), before rays were precomputed
+    private static int[][] walk(int dx, int dy) {
+        int numberOfSteps = Math.max(Math.abs(dx), Math.abs(dy));
+        int[][] steps = new int[numberOfSteps + 1][];
+        for (int t = 0; t <= numberOfSteps; t++) {
+            steps[t] = new int[] {
+                Route.roundAwayFromZero(t * dx / ((double) numberOfSteps)),
+                Route.roundAwayFromZero(t * dy / ((double) numberOfSteps))
+            };
+        }
+        return steps;
+    }
+}
@@ -0,0 +1,168 @@
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Scanner;
+
+/**
+ * Checks TurnReader against the Scanner-based parser it replaced, on the
+ * recorded and hand-made engine input in test/golden.
+ *
+ * Usage: java -cp out TurnReaderTest [golden directory] [update]
+ *
+ * Each input is parsed by both parsers into the same text: every turn's
+ * number, scores, field and children, then "rejected" if the input was
+ * malformed or cut short partway. Both must agree with each other and with
+ * the NAME.expected file next to the input. Passing update rewrites the
+ * expected files from the old parser.
+ */
+public class TurnReaderTest {
+
+    private static final int CHILDREN = 2 * Constants.NUM_CHILDREN_PER_TEAM;
+
+    public static void main(String[] args) throws IOException {
+        File directory = new File(args.length > 0 ? args[0] : "test/golden");
+        boolean update = args.length > 1 && args[1].equals("update");
+        File[] inputs = directory.listFiles();
+        if (inputs == null) {
+            throw new AssertionError("no golden directory at " + directory);
+        }
+        Arrays.sort(inputs);
+        int checked = 0;
+        for (File input : inputs) {
+            if (!input.getName().endsWith(".txt")) {
+                continue;
+            }
+            byte[] bytes = Files.readAllBytes(input.toPath());
+            String old = parseWithScanner(bytes);
+            String parsed = parseWithTurnReader(bytes);
+            File expectedFile = new File(directory, input.getName().replace(".txt", ".expected"));
+            if (update) {
+                Files.write(expectedFile.toPath(), old.getBytes(StandardCharsets.US_ASCII));
+            }
+            String expected = new String(Files.readAllBytes(expectedFile.toPath()), StandardCharsets.US_ASCII);
+            if (!old.equals(expected)) {
+                throw new AssertionError(input.getName() + ": the old parser no longer matches " + expectedFile.getName());
+            }
+            if (!parsed.equals(expected)) {
+                throw new AssertionError(input.getName() + ": TurnReader gave\n" + parsed + "\ninstead of\n" + expected);
+            }
+            checked++;
+        }
+        System.out.println("TurnReaderTest: " + checked + " golden inputs match");
+    }
+
+    private static String parseWithTurnReader(byte[] bytes) {
+        StringBuilder out = new StringBuilder();
+        TurnReader in = new TurnReader(new ByteArrayInputStream(bytes));
+        Child[] children = new Child[CHILDREN];
+        for (int i = 0; i < children.length; i++) {
+            children[i] = new Fighter(i < Constants.NUM_CHILDREN_PER_TEAM ? Constants.RED : Constants.BLUE, null);
+        }
+        int[][] field = new int[Constants.FIELD_DIMENSION][Constants.FIELD_DIMENSION];
+        try {
+            for (int turn = in.readInt(); turn >= 0; turn = in.readInt()) {
+                int red = in.readInt();
+                int blue = in.readInt();
+                for (int[] column : field) {
+                    for (int j = 0; j < column.length; j++) {
+                        column[j] = in.readFieldCell();
+                    }
+                }
+                String[] states = new String[CHILDREN];
+                for (int i = 0; i < children.length; i++) {
+                    in.readChild(children[i]);
+                    Child child = children[i];
+                    states[i] = child.getPosition().exists()
+                            ? state(child.getPosition().getX(), child.getPosition().getY(), child.isStanding(),
+                                    child.isDefending(), child.getHolding(), child.getPaintballCount())
+                            : "hidden";
+                }
+                appendTurn(out, turn, red, blue, field, states);
+            }
+        } catch (IOException | RuntimeException e) {
+            out.append("rejected\n");
+        }
+        return out.toString();
+    }
+
+    // the parsing loop PaintballPlayer.run used before TurnReader
+    private static String parseWithScanner(byte[] bytes) {
+        StringBuilder out = new StringBuilder();
+        Scanner in = new Scanner(new ByteArrayInputStream(bytes), "US-ASCII");
+        int[][] field = new int[Constants.FIELD_DIMENSION][Constants.FIELD_DIMENSION];
+        try {
+            for (int turn = in.nextInt(); turn >= 0; turn = in.nextInt()) {
+                int red = in.nextInt();
+                int blue = in.nextInt();
+                for (int[] column : field) {
+                    for (int j = 0; j < column.length; j++) {
+                        column[j] = decodeFieldSymbol(in.next());
+                    }
+                }
+                String[] states = new String[CHILDREN];
+                for (int i = 0; i < CHILDREN; i++) {
+                    String encoding = in.next();
+                    if (encoding.equals("*")) {
+                        states[i] = "hidden";
+                        continue;
+                    }
+                    int x = Integer.parseInt(encoding);
+                    int y = in.nextInt();
+                    boolean standing = in.next().equals("S");
+                    boolean defending = in.next().equals("D");
+                    int holding = in.next().charAt(0) - 'a';
+                    states[i] = state(x, y, standing, defending, holding, in.nextInt());
+                }
+                appendTurn(out, turn, red, blue, field, states);
+            }
+        } catch (RuntimeException e) {
+            out.append("rejected\n");
+        }
+        return out.toString();
+    }
+
+    private static final int[] sFieldMapping = {
+        Constants.ADAPTER, Constants.BLUE_FLAG, Constants.EMPTY, Constants.EMPTY, Constants.EMPTY,
+        Constants.RAPID_FIRE_LAUNCHER, Constants.EMPTY, Constants.EMPTY, Constants.EMPTY, Constants.EMPTY,
+        Constants.EMPTY, Constants.BASIC_LAUNCHER, Constants.EMPTY, Constants.EMPTY, Constants.EMPTY,
+        Constants.EMPTY, Constants.EMPTY, Constants.RED_FLAG, Constants.SHIELD, Constants.TREE,
+        Constants.EMPTY, Constants.LOW_WALL, Constants.HIGH_WALL, Constants.EMPTY, Constants.EMPTY, Constants.EMPTY
+    };
+
+    private static int decodeFieldSymbol(String fieldEncoding) {
+        char code = fieldEncoding.charAt(0);
+        if (code == '*') {
+            return Constants.UNKNOWN;
+        } else if (code == '.') {
+            return Constants.EMPTY;
+        } else if (code == 'P') {
+            return -Integer.parseInt(fieldEncoding.substring(1));
+        } else {
+            return sFieldMapping[ code - 'A'];
+        }
+    }
+
+    private static String state(int x, int y, boolean standing, boolean defending, int holding, int paintballs) {
+        return x + " " + y + (standing ? " standing" : " crouching") + (defending ? " defending" : " open")
+                + " holding " + holding + " balls " + paintballs;
+    }
+
+    private static void appendTurn(StringBuilder out, int turn, int red, int blue, int[][] field, String[] states) {
+        out.append("turn ").append(turn).append(" scores ").append(red).append(' ').append(blue).append('\n');
+        for (int[] column : field) {
+            for (int cell : column) {
+                out.append(cell).append(' ');
+            }
+            out.append('\n');
+        }
+        for (String state : states) {
+            out.append(state).append('\n');
+        }
+    }
+
+    private TurnReaderTest() {
+    }
+}